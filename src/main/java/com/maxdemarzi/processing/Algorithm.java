@@ -7,4 +7,18 @@ public abstract interface Algorithm {
     public abstract long numberOfNodes();
     public abstract String getPropertyName();
 
+    // results are written back for the nodes 0 .. numberOfNodes()-1, algorithms with a dense id space map them to node ids
+    public default long toOriginalNodeId(long node) {
+        return node;
+    }
+
+    public default double getResultAt(long node) {
+        return getResult(toOriginalNodeId(node));
+    }
+
+    // scores are only written when positive, algorithms whose results are node ids write 0 as well
+    public default boolean isWritten(double value) {
+        return value > 0;
+    }
+
 }
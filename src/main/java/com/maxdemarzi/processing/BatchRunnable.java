@@ -28,7 +28,7 @@ public class BatchRunnable implements Runnable, OpsRunner {
         int notFound = 0;
         for (int i=0;i<offset;i++) {
             try {
-                run((int) ids[i]);
+                run(ids[i]);
             } catch (EntityNotFoundException e) {
                 notFound++;
             }
@@ -37,7 +37,7 @@ public class BatchRunnable implements Runnable, OpsRunner {
     }
 
     @Override
-    public void run(int node) throws EntityNotFoundException {
+    public void run(long node) throws EntityNotFoundException {
         runner.run(node);
     }
 }
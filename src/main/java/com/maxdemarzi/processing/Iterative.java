@@ -0,0 +1,14 @@
+package com.maxdemarzi.processing;
+
+/**
+ * Algorithms that stop early once an iteration changes their results by less than a tolerance.
+ */
+public interface Iterative {
+
+    // the iterations run by the last compute
+    int getIterations();
+
+    // the change of the results in the last iteration
+    double getResidual();
+
+}
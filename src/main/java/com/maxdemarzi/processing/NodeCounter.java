@@ -8,13 +8,15 @@ import org.neo4j.graphdb.Result;
  * @since 28.03.15
  */
 public class NodeCounter {
-    public int getNodeCount(GraphDatabaseService db) {
-        Result result = db.execute( "MATCH (n) RETURN max(id(n)) AS maxId" );
-        return ((Number) result.next().get( "maxId" )).intValue() + 1;
-
+    // results have to be closed, an open one keeps its transaction bound to the calling thread
+    public long getNodeCount(GraphDatabaseService db) {
+        try (Result result = db.execute( "MATCH (n) RETURN max(id(n)) AS maxId" )) {
+            return ((Number) result.next().get( "maxId" )).longValue() + 1;
+        }
     }
-    public int getRelationshipCount(GraphDatabaseService db) {
-        Result result = db.execute( "MATCH ()-[r]->() RETURN max(id(r)) AS maxId" );
-        return ((Number) result.next().get( "maxId" )).intValue() + 1;
+    public long getRelationshipCount(GraphDatabaseService db) {
+        try (Result result = db.execute( "MATCH ()-[r]->() RETURN max(id(r)) AS maxId" )) {
+            return ((Number) result.next().get( "maxId" )).longValue() + 1;
+        }
     }
 }
@@ -0,0 +1,5 @@
+package com.maxdemarzi.processing;
+
+public interface RangeRunner {
+    void run(int start, int end);
+}
@@ -1,13 +1,27 @@
 package com.maxdemarzi.processing;
 
-import com.maxdemarzi.processing.centrality.Betweenness;
-import com.maxdemarzi.processing.centrality.Closeness;
+import com.maxdemarzi.processing.centrality.BetweennessProjection;
+import com.maxdemarzi.processing.centrality.ClosenessProjection;
 import com.maxdemarzi.processing.centrality.DegreeArrayStorageParallelSPI;
-import com.maxdemarzi.processing.labelpropagation.LabelPropagation;
-import com.maxdemarzi.processing.labelpropagation.LabelPropagationMapStorage;
+import com.maxdemarzi.processing.centrality.EigenvectorCentrality;
+import com.maxdemarzi.processing.centrality.HitsCentrality;
+import com.maxdemarzi.processing.centrality.KatzCentrality;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.NodeOrder;
+import com.maxdemarzi.processing.graph.Orientation;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.PropertyPredicate;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.labelpropagation.LabelPropagationFrequency;
+import com.maxdemarzi.processing.labelpropagation.LabelPropagationProjection;
+import com.maxdemarzi.processing.louvain.LouvainProjection;
 import com.maxdemarzi.processing.pagerank.*;
+import com.maxdemarzi.processing.scc.SccProjection;
+import com.maxdemarzi.processing.shortestpath.ShortestPathProjection;
 import com.maxdemarzi.processing.unionfind.UnionFind;
-import com.maxdemarzi.processing.unionfind.UnionFindMapStorage;
+import com.maxdemarzi.processing.unionfind.UnionFindIncremental;
+import com.maxdemarzi.processing.unionfind.UnionFindParallel;
+import com.maxdemarzi.processing.unionfind.UnionFindProjection;
 import org.neo4j.graphdb.*;
 import org.neo4j.kernel.api.exceptions.legacyindex.AutoIndexingKernelException;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -22,10 +36,14 @@ import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import javax.ws.rs.*;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 
 @Path("/v1")
 public class Service {
@@ -55,18 +73,114 @@ public class Service {
         return "Warmed up and ready to go!";
     }
 
+    @GET
+    @Path("/catalog")
+    public String catalog(@Context GraphDatabaseService db) {
+        GraphCatalog catalog = GraphCatalog.forDatabase(db);
+        StringBuilder sb = new StringBuilder();
+        for (String graph : catalog.describe()) {
+            sb.append(graph).append("\n");
+        }
+        return sb.append("Total bytes: ").append(catalog.memoryUsage()).toString();
+    }
+
+    @DELETE
+    @Path("/catalog")
+    public String clearCatalog(@Context GraphDatabaseService db) {
+        GraphCatalog.forDatabase(db).clear();
+        return "Catalog cleared!";
+    }
+
     @GET
     @Path("/pagerank/{label}/{type}")
     public String pageRank(@PathParam("label") String label,
                            @PathParam("type") String type,
                            @DefaultValue("20") @QueryParam("iterations") int iterations,
+                           @DefaultValue("false") @QueryParam("compressed") boolean compressed,
+                           @DefaultValue("natural") @QueryParam("order") String order,
+                           @QueryParam("via") String via,
+                           @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                           @QueryParam("weight") String weight,
+                           @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                           @DefaultValue("natural") @QueryParam("orientation") String orientation,
+                           @QueryParam("nodeFilter") String nodeFilter,
+                           @QueryParam("relationshipFilter") String relationshipFilter,
+                           @DefaultValue("double") @QueryParam("precision") String precision,
+                           @DefaultValue("0") @QueryParam("tolerance") double tolerance,
+                           @DefaultValue("pull") @QueryParam("mode") String mode,
+                           @DefaultValue("10") @QueryParam("walks") int walks,
                            @Context GraphDatabaseService db) {
 
-        PageRankArrayStorageParallelSPI pageRank = new PageRankArrayStorageParallelSPI(db, pool);
-        pageRank.compute(label, type, iterations);
+        Projection projection = projection(label, type, compressed, order, nodeFilter, relationshipFilter).withVia(via, weighted)
+                .withWeight(weight, defaultWeight).withOrientation(parse("orientation", orientation, Orientation::from));
+        Precision ranks = parse("precision", precision, Precision::from);
+        PageRankProjection pageRank;
+        switch (mode.toLowerCase()) {
+            case "delta":
+                pageRank = new PageRankDelta(db, pool, ranks);
+                break;
+            case "gauss-seidel":
+                pageRank = new PageRankGaussSeidel(db, pool, ranks);
+                break;
+            case "push":
+                pageRank = new PageRankPush(db, pool, ranks, false);
+                break;
+            case "blocked":
+                pageRank = new PageRankPush(db, pool, ranks, true);
+                break;
+            case "monte-carlo":
+                pageRank = new PageRankMonteCarlo(db, pool, ranks, walks);
+                break;
+            case "incremental":
+                pageRank = PageRankIncremental.forProjection(db, pool, ranks, projection);
+                break;
+            case "pull":
+                pageRank = new PageRankProjection(db, pool, ranks);
+                break;
+            default:
+                throw badRequest("Unknown mode " + mode + ", it has to be pull, delta, gauss-seidel, push, blocked, monte-carlo or incremental");
+        }
+        pageRank.compute(projection, iterations, tolerance);
         writeBackResults(db, pageRank);
 
-        return "PageRank for " + label + " and " + type + " Completed!";
+        if (pageRank instanceof PageRankMonteCarlo) {
+            PageRankMonteCarlo estimate = (PageRankMonteCarlo) pageRank;
+            return "PageRank for " + label + " and " + type + " Completed! Walks: " + estimate.getWalks() + " Error: " + estimate.getError();
+        }
+        if (pageRank instanceof PageRankIncremental) {
+            return "PageRank for " + label + " and " + type + " Completed!" + convergence(pageRank, tolerance) + " Updated: " + pageRank.numberOfNodes();
+        }
+        return "PageRank for " + label + " and " + type + " Completed!" + convergence(pageRank, tolerance);
+    }
+
+    @GET
+    @Path("/pagerank/personalized/{label}/{type}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String personalizedPageRank(@PathParam("label") String label,
+                                       @PathParam("type") String type,
+                                       @QueryParam("source") List<Long> sources,
+                                       @DefaultValue("0.0001") @QueryParam("epsilon") double epsilon,
+                                       @DefaultValue("10") @QueryParam("top") int top,
+                                       @DefaultValue("natural") @QueryParam("orientation") String orientation,
+                                       @Context GraphDatabaseService db) {
+
+        // pushes only stop once residuals fall below epsilon, without it a request would flood the whole graph
+        if (epsilon <= 0) throw badRequest("epsilon has to be positive, not " + epsilon);
+        if (top < 0) throw badRequest("top can not be negative, not " + top);
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(db);
+        long[] ids = new long[sources.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = sources.get(i);
+        }
+        pageRank.compute(label, type, parse("orientation", orientation, Orientation::from).direction(), ids, epsilon);
+
+        // scored nodes are returned instead of written back
+        StringBuilder sb = new StringBuilder("[");
+        for (long node : pageRank.top(top)) {
+            if (sb.length() > 1) sb.append(",");
+            sb.append("{\"id\":").append(node).append(",\"score\":").append(pageRank.getResult(node)).append("}");
+        }
+        return sb.append("]").toString();
     }
 
     @GET
@@ -74,13 +188,34 @@ public class Service {
     public String labelPropagation(@PathParam("label") String label,
                            @PathParam("type") String type,
                            @DefaultValue("20") @QueryParam("iterations") int iterations,
+                           @QueryParam("via") String via,
+                           @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                           @QueryParam("nodeFilter") String nodeFilter,
+                           @QueryParam("relationshipFilter") String relationshipFilter,
+                           @DefaultValue("0") @QueryParam("tolerance") double tolerance,
+                           @QueryParam("weight") String weight,
+                           @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                           @DefaultValue("min") @QueryParam("mode") String mode,
+                           @DefaultValue("42") @QueryParam("seed") long seed,
                            @Context GraphDatabaseService db) {
 
-        LabelPropagation labelPropagation = new LabelPropagationMapStorage(db);
-        labelPropagation.compute(label, type, iterations);
+        if (!mode.equalsIgnoreCase("min") && !mode.equalsIgnoreCase("frequency")) {
+            throw badRequest("Unknown mode " + mode + ", it has to be min or frequency");
+        }
+        Projection projection = projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, weighted);
+        if (mode.equalsIgnoreCase("frequency")) {
+            LabelPropagationFrequency labelPropagation = new LabelPropagationFrequency(db, pool).withSeed(seed);
+            labelPropagation.compute(projection.withWeight(weight, defaultWeight), iterations, tolerance);
+            writeBackResults(db, labelPropagation);
+
+            return "LabelPropagation for " + label + " and " + type + " Completed!" + convergence(labelPropagation, tolerance);
+        }
+
+        LabelPropagationProjection labelPropagation = new LabelPropagationProjection(db, pool);
+        labelPropagation.compute(projection, iterations, tolerance);
         writeBackResults(db, labelPropagation);
 
-        return "LabelPropagation for " + label + " and " + type + " Completed!";
+        return "LabelPropagation for " + label + " and " + type + " Completed!" + convergence(labelPropagation, tolerance);
     }
 
     @GET
@@ -88,15 +223,139 @@ public class Service {
     public String unionFind(@PathParam("label") String label,
                                    @PathParam("type") String type,
                                    @DefaultValue("0") @QueryParam("iterations") int iterations,
+                                   @DefaultValue("false") @QueryParam("compressed") boolean compressed,
+                                   @DefaultValue("natural") @QueryParam("order") String order,
+                                   @QueryParam("via") String via,
+                                   @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                                   @QueryParam("nodeFilter") String nodeFilter,
+                                   @QueryParam("relationshipFilter") String relationshipFilter,
+                                   @DefaultValue("parallel") @QueryParam("mode") String mode,
+                                   @DefaultValue("true") @QueryParam("sampling") boolean sampling,
                                    @Context GraphDatabaseService db) {
 
-        UnionFind unionFind = new UnionFindMapStorage(db);
-        unionFind.compute(label, type, iterations);
+        Projection projection = projection(label, type, compressed, order, nodeFilter, relationshipFilter).withVia(via, weighted);
+        UnionFind unionFind;
+        if ("incremental".equalsIgnoreCase(mode)) {
+            UnionFindIncremental incremental = UnionFindIncremental.forProjection(db, pool, projection);
+            incremental.refresh();
+            unionFind = incremental.snapshot();
+        } else if ("sequential".equalsIgnoreCase(mode)) {
+            UnionFindProjection sequential = new UnionFindProjection(db, pool);
+            sequential.compute(projection, iterations);
+            unionFind = sequential;
+        } else if ("parallel".equalsIgnoreCase(mode)) {
+            UnionFindParallel parallel = new UnionFindParallel(db, pool, sampling);
+            parallel.compute(projection, iterations);
+            unionFind = parallel;
+        } else {
+            throw badRequest("Unknown mode " + mode + ", it has to be parallel, sequential or incremental");
+        }
         writeBackResults(db, unionFind);
 
         return "UnionFind for " + label + " and " + type + " Completed!";
     }
 
+    @GET
+    @Path("/unionfind/component/{label}/{type}/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String component(@PathParam("label") String label,
+                            @PathParam("type") String type,
+                            @PathParam("id") long id,
+                            @QueryParam("via") String via,
+                            @QueryParam("nodeFilter") String nodeFilter,
+                            @QueryParam("relationshipFilter") String relationshipFilter,
+                            @Context GraphDatabaseService db) {
+
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool,
+                projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, false));
+        return "{\"id\":" + id + ",\"component\":" + unionFind.component(id) + "}";
+    }
+
+    @GET
+    @Path("/unionfind/same/{label}/{type}/{id}/{other}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public String sameComponent(@PathParam("label") String label,
+                                @PathParam("type") String type,
+                                @PathParam("id") long id,
+                                @PathParam("other") long other,
+                                @QueryParam("via") String via,
+                                @QueryParam("nodeFilter") String nodeFilter,
+                                @QueryParam("relationshipFilter") String relationshipFilter,
+                                @Context GraphDatabaseService db) {
+
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool,
+                projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, false));
+        return "{\"same\":" + unionFind.sameComponent(id, other) + "}";
+    }
+
+    @GET
+    @Path("/scc/{label}/{type}")
+    public String stronglyConnectedComponents(@PathParam("label") String label,
+                                              @PathParam("type") String type,
+                                              @DefaultValue("false") @QueryParam("compressed") boolean compressed,
+                                              @DefaultValue("natural") @QueryParam("order") String order,
+                                              @QueryParam("nodeFilter") String nodeFilter,
+                                              @QueryParam("relationshipFilter") String relationshipFilter,
+                                              @Context GraphDatabaseService db) {
+
+        SccProjection scc = new SccProjection(db, pool);
+        scc.compute(projection(label, type, compressed, order, nodeFilter, relationshipFilter), 0);
+        writeBackResults(db, scc);
+
+        return "Strongly Connected Components for " + label + " and " + type + " Completed! Components: " + scc.getComponentCount();
+    }
+
+    @GET
+    @Path("/louvain/{label}/{type}")
+    public String louvain(@PathParam("label") String label,
+                          @PathParam("type") String type,
+                          @DefaultValue("10") @QueryParam("iterations") int iterations,
+                          @DefaultValue("10") @QueryParam("levels") int levels,
+                          @DefaultValue("0.0001") @QueryParam("tolerance") double tolerance,
+                          @DefaultValue("false") @QueryParam("intermediate") boolean intermediate,
+                          @DefaultValue("false") @QueryParam("compressed") boolean compressed,
+                          @DefaultValue("natural") @QueryParam("order") String order,
+                          @QueryParam("via") String via,
+                          @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                          @QueryParam("weight") String weight,
+                          @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                          @QueryParam("nodeFilter") String nodeFilter,
+                          @QueryParam("relationshipFilter") String relationshipFilter,
+                          @Context GraphDatabaseService db) {
+
+        LouvainProjection louvain = new LouvainProjection(db, pool);
+        louvain.compute(projection(label, type, compressed, order, nodeFilter, relationshipFilter).withVia(via, weighted)
+                .withWeight(weight, defaultWeight), iterations, levels, tolerance);
+        writeBackResults(db, louvain);
+        if (intermediate) {
+            for (int level = 0; level < louvain.getLevelCount(); level++) {
+                writeBackResults(db, louvain.level(level));
+            }
+        }
+
+        return "Louvain for " + label + " and " + type + " Completed! Modularities: " + Arrays.toString(louvain.getModularities());
+    }
+
+    @GET
+    @Path("/shortestpath/{label}/{type}/{id}")
+    public String shortestPath(@PathParam("label") String label,
+                               @PathParam("type") String type,
+                               @PathParam("id") long id,
+                               @QueryParam("weight") String weight,
+                               @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                               @DefaultValue("undirected") @QueryParam("orientation") String orientation,
+                               @QueryParam("nodeFilter") String nodeFilter,
+                               @QueryParam("relationshipFilter") String relationshipFilter,
+                               @Context GraphDatabaseService db) {
+
+        ShortestPathProjection shortestPath = new ShortestPathProjection(db, pool, id);
+        shortestPath.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter)
+                .withWeight(weight, defaultWeight).withOrientation(parse("orientation", orientation, Orientation::from)), 0);
+        writeBackResults(db, shortestPath);
+
+        return "ShortestPath from " + id + " for " + label + " and " + type + " Completed!";
+    }
+
     @GET
     @Path("/centrality/indegree/{label}/{type}")
     public String inDegree(@PathParam("label") String label,
@@ -140,10 +399,13 @@ public class Service {
     @Path("/centrality/betweenness/{label}/{type}")
     public String betweenness(@PathParam("label") String label,
                          @PathParam("type") String type,
+                         @QueryParam("via") String via,
+                         @QueryParam("nodeFilter") String nodeFilter,
+                         @QueryParam("relationshipFilter") String relationshipFilter,
                          @Context GraphDatabaseService db) {
 
-        Betweenness centrality = new Betweenness(db);
-        centrality.compute(label, type, 0);
+        BetweennessProjection centrality = new BetweennessProjection(db, pool);
+        centrality.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, false), 0);
         writeBackResults(db, centrality);
 
         return "Betweenness Centrality for " + label + " and " + type + " Completed!";
@@ -153,15 +415,126 @@ public class Service {
     @Path("/centrality/closeness/{label}/{type}")
     public String closeness(@PathParam("label") String label,
                               @PathParam("type") String type,
+                              @QueryParam("via") String via,
+                              @QueryParam("nodeFilter") String nodeFilter,
+                              @QueryParam("relationshipFilter") String relationshipFilter,
                               @Context GraphDatabaseService db) {
 
-        Closeness centrality = new Closeness(db);
-        centrality.compute(label, type, 0);
+        ClosenessProjection centrality = new ClosenessProjection(db, pool);
+        centrality.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, false), 0);
         writeBackResults(db, centrality);
 
         return "Closeness Centrality for " + label + " and " + type + " Completed!";
     }
 
+    @GET
+    @Path("/centrality/eigenvector/{label}/{type}")
+    public String eigenvector(@PathParam("label") String label,
+                              @PathParam("type") String type,
+                              @DefaultValue("20") @QueryParam("iterations") int iterations,
+                              @DefaultValue("0") @QueryParam("tolerance") double tolerance,
+                              @DefaultValue("pull") @QueryParam("kernel") String kernel,
+                              @QueryParam("via") String via,
+                              @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                              @QueryParam("weight") String weight,
+                              @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                              @DefaultValue("natural") @QueryParam("orientation") String orientation,
+                              @QueryParam("nodeFilter") String nodeFilter,
+                              @QueryParam("relationshipFilter") String relationshipFilter,
+                              @Context GraphDatabaseService db) {
+
+        EigenvectorCentrality centrality = new EigenvectorCentrality(db, pool, parse("kernel", kernel, SparseMatrixVector.Kernel::from));
+        centrality.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, weighted)
+                .withWeight(weight, defaultWeight).withOrientation(parse("orientation", orientation, Orientation::from)), iterations, tolerance);
+        writeBackResults(db, centrality);
+
+        return "Eigenvector Centrality for " + label + " and " + type + " Completed!" + convergence(centrality, tolerance);
+    }
+
+    @GET
+    @Path("/centrality/hits/{label}/{type}")
+    public String hits(@PathParam("label") String label,
+                       @PathParam("type") String type,
+                       @DefaultValue("20") @QueryParam("iterations") int iterations,
+                       @DefaultValue("0") @QueryParam("tolerance") double tolerance,
+                       @DefaultValue("pull") @QueryParam("kernel") String kernel,
+                       @QueryParam("via") String via,
+                       @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                       @QueryParam("weight") String weight,
+                       @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                       @DefaultValue("natural") @QueryParam("orientation") String orientation,
+                       @QueryParam("nodeFilter") String nodeFilter,
+                       @QueryParam("relationshipFilter") String relationshipFilter,
+                       @Context GraphDatabaseService db) {
+
+        HitsCentrality centrality = new HitsCentrality(db, pool, parse("kernel", kernel, SparseMatrixVector.Kernel::from));
+        centrality.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, weighted)
+                .withWeight(weight, defaultWeight).withOrientation(parse("orientation", orientation, Orientation::from)), iterations, tolerance);
+        writeBackResults(db, centrality);
+        writeBackResults(db, centrality.hubs());
+
+        return "HITS Centrality for " + label + " and " + type + " Completed!" + convergence(centrality, tolerance);
+    }
+
+    @GET
+    @Path("/centrality/katz/{label}/{type}")
+    public String katz(@PathParam("label") String label,
+                       @PathParam("type") String type,
+                       @DefaultValue("20") @QueryParam("iterations") int iterations,
+                       @DefaultValue("0") @QueryParam("tolerance") double tolerance,
+                       @DefaultValue("0.1") @QueryParam("alpha") double alpha,
+                       @DefaultValue("1") @QueryParam("beta") double beta,
+                       @DefaultValue("pull") @QueryParam("kernel") String kernel,
+                       @QueryParam("via") String via,
+                       @DefaultValue("false") @QueryParam("weighted") boolean weighted,
+                       @QueryParam("weight") String weight,
+                       @DefaultValue("1") @QueryParam("defaultWeight") double defaultWeight,
+                       @DefaultValue("natural") @QueryParam("orientation") String orientation,
+                       @QueryParam("nodeFilter") String nodeFilter,
+                       @QueryParam("relationshipFilter") String relationshipFilter,
+                       @Context GraphDatabaseService db) {
+
+        // scores that are not positive would not be written back
+        if (alpha <= 0) throw badRequest("alpha has to be positive, not " + alpha);
+        if (beta <= 0) throw badRequest("beta has to be positive, not " + beta);
+        KatzCentrality centrality = new KatzCentrality(db, pool, parse("kernel", kernel, SparseMatrixVector.Kernel::from), alpha, beta);
+        try {
+            centrality.compute(projection(label, type, false, "natural", nodeFilter, relationshipFilter).withVia(via, weighted)
+                    .withWeight(weight, defaultWeight).withOrientation(parse("orientation", orientation, Orientation::from)), iterations, tolerance);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+        writeBackResults(db, centrality);
+
+        return "Katz Centrality for " + label + " and " + type + " Completed!" + convergence(centrality, tolerance);
+    }
+
+    private static WebApplicationException badRequest(String message) {
+        return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST).entity(message).build());
+    }
+
+    // query parameters that do not parse answer 400 Bad Request, like the ones that are out of range
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw badRequest("Invalid " + name + ": " + value);
+        }
+    }
+
+    // only reported when asked for a tolerance, so the plain responses stay as they were
+    private static String convergence(Iterative algorithm, double tolerance) {
+        if (tolerance <= 0) return "";
+        return " Iterations: " + algorithm.getIterations() + " Residual: " + algorithm.getResidual();
+    }
+
+    // the algorithm picks the directions it needs
+    private static Projection projection(String label, String type, boolean compressed, String order, String nodeFilter, String relationshipFilter) {
+        return new Projection(label, type, Direction.OUTGOING).withCompression(compressed).withOrder(parse("order", order, NodeOrder::from))
+                .withFilters(parse("nodeFilter", nodeFilter, PropertyPredicate::parseAll),
+                        parse("relationshipFilter", relationshipFilter, PropertyPredicate::parseAll));
+    }
+
     public void writeBackResults(GraphDatabaseService db, Algorithm algorithm) {
         ThreadToStatementContextBridge ctx = ((GraphDatabaseAPI)db).getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
         int propertyNameId;
@@ -172,10 +545,9 @@ public class Service {
             throw new RuntimeException(e);
         }
         final long nodes = algorithm.numberOfNodes();
-        int batches = (int) nodes / WRITE_BATCH;
-        List<Future> futures = new ArrayList<>(batches);
-        for (int node = 0; node < nodes; node += WRITE_BATCH) {
-            final int start = node;
+        List<Future> futures = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, nodes / WRITE_BATCH + 1));
+        for (long node = 0; node < nodes; node += WRITE_BATCH) {
+            final long start = node;
             Future future = pool.submit(new Runnable() {
                 public void run() {
                     try (Transaction tx = db.beginTx()) {
@@ -183,9 +555,9 @@ public class Service {
                         for (long i = 0; i < WRITE_BATCH; i++) {
                             long node = i + start;
                             if (node >= nodes) break;
-                            double value = algorithm.getResult(node);
-                            if (value > 0) {
-                                ops.nodeSetProperty(node, DefinedProperty.doubleProperty(propertyNameId, value));
+                            double value = algorithm.getResultAt(node);
+                            if (algorithm.isWritten(value)) {
+                                ops.nodeSetProperty(algorithm.toOriginalNodeId(node), DefinedProperty.doubleProperty(propertyNameId, value));
                             }
                         }
                         tx.success();
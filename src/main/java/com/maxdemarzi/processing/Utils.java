@@ -44,8 +44,11 @@ public class Utils {
 
 
     static ExecutorService createPool(int threads, int queueSize) {
-        return new ThreadPoolExecutor(1, threads, 30, TimeUnit.SECONDS, new LinkedBlockingDeque<>(queueSize),
+        // core size has to match the thread count, otherwise the executor only grows once the queue is full
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingDeque<>(queueSize),
                 new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
     }
 
     public static int waitForTasks(List<Future> futures) {
@@ -62,11 +65,25 @@ public class Utils {
         return total;
     }
 
-    public static void runOperations(ExecutorService pool, final PrimitiveLongIterator it, int totalCount, ReadOperations ops, OpsRunner runner) {
-        List<Future> futures = new ArrayList<>((int)(totalCount / BATCH_SIZE));
+    public static void runOperations(ExecutorService pool, final PrimitiveLongIterator it, long totalCount, ReadOperations ops, OpsRunner runner) {
+        List<Future> futures = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, totalCount / BATCH_SIZE + 1));
         while (it.hasNext()) {
             futures.add(pool.submit(new BatchRunnable(ops, it, BATCH_SIZE,runner)));
         }
         Utils.waitForTasks(futures);
     }
+
+    public static void runRanges(ExecutorService pool, int count, RangeRunner runner) {
+        runRanges(pool, count, BATCH_SIZE, runner);
+    }
+
+    public static void runRanges(ExecutorService pool, int count, int batchSize, RangeRunner runner) {
+        List<Future> futures = new ArrayList<>(count / batchSize + 1);
+        for (int start = 0; start < count; start += batchSize) {
+            final int from = start;
+            final int to = Math.min(count, start + batchSize);
+            futures.add(pool.submit(() -> runner.run(from, to)));
+        }
+        Utils.waitForTasks(futures);
+    }
 }
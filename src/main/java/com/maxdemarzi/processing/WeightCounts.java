@@ -0,0 +1,86 @@
+package com.maxdemarzi.processing;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from non negative int keys (labels, communities) to their summed weights, used as the scratch
+ * table of one worker. Clearing only resets the slots used since the last clear, so a node with a few neighbours does
+ * not pay for the table a hub grew. Not thread safe.
+ */
+public class WeightCounts {
+    private static final int EMPTY = -1;
+    private int[] keys = new int[64];
+    private double[] weights = new double[64];
+    private int[] used = new int[32];
+    private int size;
+
+    public WeightCounts() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void add(int key, double weight) {
+        if (size * 2 >= keys.length) grow();
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            weights[slot] = 0;
+            if (size == used.length) used = Arrays.copyOf(used, size * 2);
+            used[size++] = slot;
+        }
+        weights[slot] += weight;
+    }
+
+    // 0 for keys that were not added
+    public double get(int key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : weights[slot];
+    }
+
+    // the keys in the order they were first added, index runs from 0 to size()-1
+    public int size() {
+        return size;
+    }
+
+    public int keyAt(int index) {
+        return keys[used[index]];
+    }
+
+    public double weightAt(int index) {
+        return weights[used[index]];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[used[i]] = EMPTY;
+        }
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldWeights = weights;
+        int[] oldUsed = used;
+        int oldSize = size;
+        keys = new int[oldKeys.length * 2];
+        weights = new double[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldSize; i++) {
+            add(oldKeys[oldUsed[i]], oldWeights[oldUsed[i]]);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
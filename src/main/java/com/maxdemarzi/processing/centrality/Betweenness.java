@@ -1,6 +1,6 @@
 package com.maxdemarzi.processing.centrality;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import org.neo4j.graphalgo.impl.centrality.BetweennessCentrality;
 import org.neo4j.graphalgo.impl.shortestpath.SingleSourceShortestPath;
 import org.neo4j.graphdb.*;
@@ -12,12 +12,11 @@ import static com.maxdemarzi.processing.Utils.getSingleSourceShortestPath;
 
 public class Betweenness implements Centrality {
     private final GraphDatabaseService db;
-    private final int nodeCount;
+    private IdMap idMap;
     private BetweennessCentrality<Double> betweennessCentrality;
 
     public Betweenness(GraphDatabaseService db){
         this.db = db;
-        this.nodeCount = new NodeCounter().getNodeCount(db);
     }
 
     @Override
@@ -25,9 +24,9 @@ public class Betweenness implements Centrality {
         SingleSourceShortestPath<Double> singleSourceShortestPath = getSingleSourceShortestPath(DynamicRelationshipType.withName(type));
         Set<Node> nodes = new HashSet<>();
         try ( Transaction tx = db.beginTx()) {
-            ResourceIterator<Node> iterator = db.findNodes(Label.label(label));
-            while (iterator.hasNext()) {
-                nodes.add(iterator.next());
+            idMap = IdMap.load(db, label);
+            for (int node = 0; node < idMap.nodeCount(); node++) {
+                nodes.add(db.getNodeById(idMap.toOriginalNodeId(node)));
             }
             betweennessCentrality = new BetweennessCentrality<Double>(
                     singleSourceShortestPath, nodes);
@@ -47,9 +46,14 @@ public class Betweenness implements Centrality {
         return 0.0;
     }
 
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
+    }
+
     @Override
     public long numberOfNodes() {
-        return nodeCount;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 
     @Override
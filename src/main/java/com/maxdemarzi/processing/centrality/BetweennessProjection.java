@@ -0,0 +1,133 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Brandes' algorithm over the in-memory graph, relationships are followed in both directions.
+    Sources are split across the pool, every task accumulates into its own array.
+    See http://www.inf.uni-konstanz.de/algo/publications/b-fabc-01.pdf
+ */
+
+public class BetweennessProjection implements Centrality {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    private PagedDoubleArray centrality;
+
+    public BetweennessProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.BOTH), iterations);
+    }
+
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        int nodeCount = graph.nodeCount();
+        centrality = new PagedDoubleArray(nodeCount);
+        int batchSize = Math.max(1, nodeCount / (Runtime.getRuntime().availableProcessors() * 4));
+
+        runRanges(pool, nodeCount, batchSize, (start, end) -> {
+            PagedDoubleArray local = new PagedDoubleArray(nodeCount);
+            PagedDoubleArray sigma = new PagedDoubleArray(nodeCount);
+            PagedDoubleArray delta = new PagedDoubleArray(nodeCount);
+            PagedIntArray distance = new PagedIntArray(nodeCount);
+            PagedIntArray stack = new PagedIntArray(nodeCount);
+            distance.fill(-1);
+            AdjacencyCursor[] cursors = {graph.adjacency(Direction.OUTGOING).newCursor(), graph.adjacency(Direction.INCOMING).newCursor()};
+
+            for (int source = start; source < end; source++) {
+                int size = bfs(source, sigma, distance, stack, cursors);
+                for (int i = size - 1; i > 0; i--) {
+                    int w = stack.get(i);
+                    double coefficient = (1 + delta.get(w)) / sigma.get(w);
+                    for (AdjacencyCursor cursor : cursors) {
+                        for (cursor.init(w); cursor.hasNext(); ) {
+                            int v = cursor.nextTarget();
+                            if (distance.get(v) == distance.get(w) - 1) {
+                                delta.addTo(v, sigma.get(v) * coefficient);
+                            }
+                        }
+                    }
+                    local.addTo(w, delta.get(w));
+                }
+                for (int i = 0; i < size; i++) {
+                    int node = stack.get(i);
+                    sigma.set(node, 0);
+                    delta.set(node, 0);
+                    distance.set(node, -1);
+                }
+            }
+            // undirected, every pair is seen from both ends
+            synchronized (centrality) {
+                for (int node = 0; node < nodeCount; node++) {
+                    centrality.addTo(node, local.get(node) / 2);
+                }
+            }
+        });
+    }
+
+    // breadth first search from source, returns the number of visited nodes which are left on the stack in visiting order
+    private int bfs(int source, PagedDoubleArray sigma, PagedIntArray distance, PagedIntArray stack, AdjacencyCursor[] cursors) {
+        int head = 0, tail = 0;
+        stack.set(tail++, source);
+        sigma.set(source, 1);
+        distance.set(source, 0);
+        while (head < tail) {
+            int v = stack.get(head++);
+            for (AdjacencyCursor cursor : cursors) {
+                for (cursor.init(v); cursor.hasNext(); ) {
+                    int w = cursor.nextTarget();
+                    if (distance.get(w) < 0) {
+                        distance.set(w, distance.get(v) + 1);
+                        stack.set(tail++, w);
+                    }
+                    if (distance.get(w) == distance.get(v) + 1) {
+                        sigma.addTo(w, sigma.get(v));
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = centrality != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? centrality.get(index) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return centrality.get(node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return  "betweeness_centrality";
+    }
+}
@@ -0,0 +1,100 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Closeness as the inverse of the summed hop distance to every reachable node,
+    one breadth first search per node over the in-memory graph, relationships followed in both directions.
+ */
+
+public class ClosenessProjection implements Centrality {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    private PagedDoubleArray centrality;
+
+    public ClosenessProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.BOTH), iterations);
+    }
+
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        int nodeCount = graph.nodeCount();
+        centrality = new PagedDoubleArray(nodeCount);
+        int batchSize = Math.max(1, nodeCount / (Runtime.getRuntime().availableProcessors() * 4));
+
+        runRanges(pool, nodeCount, batchSize, (start, end) -> {
+            PagedIntArray distance = new PagedIntArray(nodeCount);
+            PagedIntArray queue = new PagedIntArray(nodeCount);
+            distance.fill(-1);
+            AdjacencyCursor[] cursors = {graph.adjacency(Direction.OUTGOING).newCursor(), graph.adjacency(Direction.INCOMING).newCursor()};
+
+            for (int source = start; source < end; source++) {
+                int head = 0, tail = 0;
+                long sum = 0;
+                queue.set(tail++, source);
+                distance.set(source, 0);
+                while (head < tail) {
+                    int v = queue.get(head++);
+                    sum += distance.get(v);
+                    for (AdjacencyCursor cursor : cursors) {
+                        for (cursor.init(v); cursor.hasNext(); ) {
+                            int w = cursor.nextTarget();
+                            if (distance.get(w) < 0) {
+                                distance.set(w, distance.get(v) + 1);
+                                queue.set(tail++, w);
+                            }
+                        }
+                    }
+                }
+                centrality.set(source, sum > 0 ? 1.0 / sum : 0);
+                for (int i = 0; i < tail; i++) {
+                    distance.set(queue.get(i), -1);
+                }
+            }
+        });
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = centrality != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? centrality.get(index) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return centrality.get(node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return  "closeness_centrality";
+    }
+}
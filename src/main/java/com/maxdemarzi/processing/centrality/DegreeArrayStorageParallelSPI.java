@@ -1,8 +1,7 @@
 package com.maxdemarzi.processing.centrality;
 
-import com.maxdemarzi.processing.NodeCounter;
-import com.maxdemarzi.processing.OpsRunner;
-import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import com.maxdemarzi.processing.graph.IdMap;
+import com.maxdemarzi.processing.paged.PagedIntArray;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
@@ -10,23 +9,21 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.api.ReadOperations;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
-import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 
-import static com.maxdemarzi.processing.Utils.runOperations;
+import static com.maxdemarzi.processing.Utils.runRanges;
 
 public class DegreeArrayStorageParallelSPI implements Centrality {
     private final GraphDatabaseAPI db;
-    private final int nodeCount;
     private final ExecutorService pool;
-    private int[] degree;
+    private IdMap idMap;
+    private PagedIntArray degree;
     private String directionName = "";
     private final Direction direction;
 
     public DegreeArrayStorageParallelSPI(GraphDatabaseService db, ExecutorService pool, Direction direction) {
         this.pool = pool;
         this.db = (GraphDatabaseAPI)db;
-        this.nodeCount = new NodeCounter().getNodeCount(db);
         this.direction = direction;
         if (!direction.equals(Direction.BOTH)) {
             directionName = direction.name().toLowerCase() + "_";
@@ -35,20 +32,21 @@ public class DegreeArrayStorageParallelSPI implements Centrality {
 
     @Override
     public void compute(String label, String type, int iterations) {
-        degree = new int[nodeCount];
-        Arrays.fill(degree, -1);
-
         try ( Transaction tx = db.beginTx()) {
             ThreadToStatementContextBridge ctx = this.db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
             ReadOperations ops = ctx.get().readOperations();
             int labelId = ops.labelGetForName(label);
             int relationshipTypeId = ops.relationshipTypeGetForName(type);
 
-            PrimitiveLongIterator it = ops.nodesGetForLabel(labelId);
-            int totalCount = nodeCount;
-            runOperations(pool, it, totalCount, ops, new OpsRunner() {
-                public void run(int id) throws EntityNotFoundException {
-                    degree[id] = ops.nodeGetDegree(id, direction, relationshipTypeId);
+            idMap = IdMap.load(ops, labelId);
+            degree = new PagedIntArray(idMap.nodeCount());
+            runRanges(pool, idMap.nodeCount(), (start, end) -> {
+                for (int node = start; node < end; node++) {
+                    try {
+                        degree.set(node, ops.nodeGetDegree(idMap.toOriginalNodeId(node), direction, relationshipTypeId));
+                    } catch (EntityNotFoundException e) {
+                        e.printStackTrace();
+                    }
                 }
             });
 
@@ -60,12 +58,23 @@ public class DegreeArrayStorageParallelSPI implements Centrality {
 
     @Override
     public double getResult(long node) {
-        return degree != null ? degree[(int) node] : 0;
+        int index = degree != null ? idMap.toMappedNodeId(node) : -1;
+        return index != -1 ? degree.get(index) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return degree.get(node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
     }
 
     @Override
     public long numberOfNodes() {
-        return nodeCount;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 
     @Override
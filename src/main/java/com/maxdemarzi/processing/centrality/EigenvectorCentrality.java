@@ -0,0 +1,52 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/*
+    Eigenvector centrality by power iteration, every node scores the sum of the scores of its incoming neighbours,
+    normalized to a euclidean length of 1. Each iteration also adds the previous score, which keeps the eigenvectors
+    but stops the scores from oscillating on bipartite graphs.
+ */
+
+public class EigenvectorCentrality extends MatrixCentrality {
+    private PagedDoubleArray next;
+
+    public EigenvectorCentrality(GraphDatabaseService db, ExecutorService pool) {
+        this(db, pool, SparseMatrixVector.Kernel.PULL);
+    }
+
+    public EigenvectorCentrality(GraphDatabaseService db, ExecutorService pool, SparseMatrixVector.Kernel kernel) {
+        super(db, pool, kernel);
+    }
+
+    @Override
+    protected void start(SparseMatrixVector matrix) {
+        next = new PagedDoubleArray(matrix.nodeCount());
+        double initial = 1 / Math.sqrt(matrix.nodeCount());
+        scores.fill(initial);
+    }
+
+    @Override
+    protected double iterate(SparseMatrixVector matrix) {
+        matrix.multiply(Direction.OUTGOING, scores::get, (node, product) -> {
+            next.set(node, product + scores.get(node));
+            return 0;
+        });
+        normalize(matrix, next);
+        double change = matrix.update(node -> Math.abs(next.get(node) - scores.get(node)));
+        PagedDoubleArray previous = scores;
+        scores = next;
+        next = previous;
+        return change;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return  "eigenvector_centrality";
+    }
+}
@@ -0,0 +1,113 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/*
+    Hubs and authorities (HITS), a node is a good authority when good hubs point to it and a good hub when it points
+    to good authorities. Both are normalized to a euclidean length of 1 after every iteration.
+    The scores of the algorithm are the authorities, hubs() has the hubs and writes them to their own property.
+ */
+
+public class HitsCentrality extends MatrixCentrality {
+    private PagedDoubleArray hubs;
+    private PagedDoubleArray nextAuthorities;
+    private PagedDoubleArray nextHubs;
+
+    public HitsCentrality(GraphDatabaseService db, ExecutorService pool) {
+        this(db, pool, SparseMatrixVector.Kernel.PULL);
+    }
+
+    public HitsCentrality(GraphDatabaseService db, ExecutorService pool, SparseMatrixVector.Kernel kernel) {
+        super(db, pool, kernel);
+    }
+
+    // authorities follow the relationships, hubs go against them
+    @Override
+    protected Direction flow() {
+        return Direction.BOTH;
+    }
+
+    @Override
+    protected void start(SparseMatrixVector matrix) {
+        int nodeCount = matrix.nodeCount();
+        hubs = new PagedDoubleArray(nodeCount);
+        nextAuthorities = new PagedDoubleArray(nodeCount);
+        nextHubs = new PagedDoubleArray(nodeCount);
+        double initial = 1 / Math.sqrt(nodeCount);
+        scores.fill(initial);
+        hubs.fill(initial);
+    }
+
+    @Override
+    protected double iterate(SparseMatrixVector matrix) {
+        matrix.multiply(Direction.OUTGOING, hubs::get, (node, product) -> {
+            nextAuthorities.set(node, product);
+            return 0;
+        });
+        normalize(matrix, nextAuthorities);
+        matrix.multiply(Direction.INCOMING, nextAuthorities::get, (node, product) -> {
+            nextHubs.set(node, product);
+            return 0;
+        });
+        normalize(matrix, nextHubs);
+        double change = matrix.update(node -> Math.max(Math.abs(nextAuthorities.get(node) - scores.get(node)),
+                Math.abs(nextHubs.get(node) - hubs.get(node))));
+
+        PagedDoubleArray previous = scores;
+        scores = nextAuthorities;
+        nextAuthorities = previous;
+        previous = hubs;
+        hubs = nextHubs;
+        nextHubs = previous;
+        return change;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return  "authority_centrality";
+    }
+
+    public Centrality hubs() {
+        return new Hubs();
+    }
+
+    private class Hubs implements Centrality {
+
+        @Override
+        public void compute(String label, String type, int iterations) {
+            HitsCentrality.this.compute(new Projection(label, type, Direction.OUTGOING), iterations, 0);
+        }
+
+        @Override
+        public double getResult(long node) {
+            int index = hubs != null ? graph.toMappedNodeId(node) : -1;
+            return index != -1 ? hubs.get(index) : 0;
+        }
+
+        @Override
+        public double getResultAt(long node) {
+            return hubs.get(node);
+        }
+
+        @Override
+        public long toOriginalNodeId(long node) {
+            return HitsCentrality.this.toOriginalNodeId(node);
+        }
+
+        @Override
+        public long numberOfNodes() {
+            return HitsCentrality.this.numberOfNodes();
+        }
+
+        @Override
+        public String getPropertyName() {
+            return  "hub_centrality";
+        }
+    }
+}
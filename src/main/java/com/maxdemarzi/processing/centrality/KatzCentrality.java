@@ -0,0 +1,68 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/*
+    Katz centrality, every node scores alpha times the sum of the scores of its incoming neighbours plus beta,
+    which counts the walks ending at a node with longer ones attenuated by alpha per step.
+    The scores only converge for alpha below 1 over the largest eigenvalue of the adjacency matrix. The changes may
+    still grow for a few iterations on the way, while the walks reach through chains of nodes that fan in, so only
+    scores that overflow or changes that keep growing for GROWING_ITERATIONS in a row fail the computation before its
+    scores are used.
+ */
+
+public class KatzCentrality extends MatrixCentrality {
+    public static final int GROWING_ITERATIONS = 10;
+
+    private final double alpha;
+    private final double beta;
+    private PagedDoubleArray next;
+    private double previousChange;
+    private int growing;
+
+    public KatzCentrality(GraphDatabaseService db, ExecutorService pool, double alpha, double beta) {
+        this(db, pool, SparseMatrixVector.Kernel.PULL, alpha, beta);
+    }
+
+    public KatzCentrality(GraphDatabaseService db, ExecutorService pool, SparseMatrixVector.Kernel kernel, double alpha, double beta) {
+        super(db, pool, kernel);
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    @Override
+    protected void start(SparseMatrixVector matrix) {
+        next = new PagedDoubleArray(matrix.nodeCount());
+        scores.fill(beta);
+        previousChange = Double.POSITIVE_INFINITY;
+        growing = 0;
+    }
+
+    @Override
+    protected double iterate(SparseMatrixVector matrix) {
+        double change = matrix.multiply(Direction.OUTGOING, scores::get, (node, product) -> {
+            double score = alpha * product + beta;
+            next.set(node, score);
+            return Math.abs(score - scores.get(node));
+        });
+        growing = change > previousChange ? growing + 1 : 0;
+        if (Double.isNaN(change) || Double.isInfinite(change) || growing >= GROWING_ITERATIONS) {
+            throw new IllegalArgumentException("Katz centrality diverges for alpha " + alpha + ", it has to be smaller");
+        }
+        previousChange = change;
+        PagedDoubleArray previous = scores;
+        scores = next;
+        next = previous;
+        return change;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return  "katz_centrality";
+    }
+}
@@ -0,0 +1,107 @@
+package com.maxdemarzi.processing.centrality;
+
+import com.maxdemarzi.processing.Iterative;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Centralities that repeatedly multiply their scores by the adjacency matrix with a {@link SparseMatrixVector}
+ * until no score changes by more than the tolerance. Scores flow along the relationships of the projection,
+ * undirected orientations make them flow both ways. The residual is the largest change of a single score.
+ */
+public abstract class MatrixCentrality implements Centrality, Iterative {
+    protected final GraphDatabaseService db;
+    protected final ExecutorService pool;
+    protected final SparseMatrixVector.Kernel kernel;
+    protected Graph graph;
+    protected PagedDoubleArray scores;
+    protected int iterations;
+    protected double residual;
+
+    protected MatrixCentrality(GraphDatabaseService db, ExecutorService pool, SparseMatrixVector.Kernel kernel) {
+        this.db = db;
+        this.pool = pool;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations, 0);
+    }
+
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(SparseMatrixVector.loadDirection(flow(), kernel)));
+        SparseMatrixVector matrix = new SparseMatrixVector(pool, graph, kernel);
+        scores = new PagedDoubleArray(graph.nodeCount());
+        iterations = 0;
+        residual = 0;
+        start(matrix);
+        while (iterations < maxIterations) {
+            residual = iterate(matrix);
+            iterations++;
+            if (residual < tolerance) break;
+        }
+    }
+
+    // the directions the scores are multiplied in, BOTH when they flow back and forth
+    protected Direction flow() {
+        return Direction.OUTGOING;
+    }
+
+    // sets the scores to start from
+    protected abstract void start(SparseMatrixVector matrix);
+
+    /**
+     * Multiplies the scores once and normalizes them.
+     * @return the largest change of a score
+     */
+    protected abstract double iterate(SparseMatrixVector matrix);
+
+    // divides the values by their euclidean length, all 0 stay 0
+    protected static void normalize(SparseMatrixVector matrix, PagedDoubleArray values) {
+        double norm = Math.sqrt(matrix.sum(node -> values.get(node) * values.get(node)));
+        if (norm <= 0) return;
+        matrix.update(node -> {
+            values.set(node, values.get(node) / norm);
+            return 0;
+        });
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = scores != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? scores.get(index) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return scores.get(node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
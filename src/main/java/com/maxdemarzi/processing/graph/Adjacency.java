@@ -0,0 +1,42 @@
+package com.maxdemarzi.processing.graph;
+
+/**
+ * Neighbours of the nodes of a {@link Graph} in one direction, addressed by dense node id.
+ */
+public interface Adjacency {
+
+    int degree(int node);
+
+    long relationshipCount();
+
+    long memoryUsage();
+
+    /**
+     * Weighted adjacencies keep a weight for every relationship, the others report a weight of 1.
+     */
+    boolean hasWeights();
+
+    /**
+     * Whether {@link #target(int, int)} reads a neighbour directly, otherwise it reads all neighbours in front of it.
+     */
+    default boolean hasRandomAccess() {
+        return false;
+    }
+
+    /**
+     * @return the index-th neighbour of the node, from 0 to its degree - 1, in the order a cursor reads them
+     */
+    default int target(int node, int index) {
+        AdjacencyCursor cursor = newCursor().init(node);
+        int target = cursor.nextTarget();
+        for (int i = 0; i < index; i++) {
+            target = cursor.nextTarget();
+        }
+        return target;
+    }
+
+    /**
+     * Cursors are not thread safe, every thread creates its own and reuses it for all nodes it visits.
+     */
+    AdjacencyCursor newCursor();
+}
@@ -0,0 +1,18 @@
+package com.maxdemarzi.processing.graph;
+
+public interface AdjacencyCursor {
+
+    /**
+     * Positions the cursor on the first neighbour of node.
+     */
+    AdjacencyCursor init(int node);
+
+    boolean hasNext();
+
+    int nextTarget();
+
+    /**
+     * @return the weight of the relationship to the last target
+     */
+    float weight();
+}
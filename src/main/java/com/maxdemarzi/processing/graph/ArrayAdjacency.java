@@ -0,0 +1,83 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.paged.PagedFloatArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+
+/**
+ * Compressed sparse row layout, the neighbours of node n are targets[offsets[n] .. offsets[n+1]).
+ * Weights, if any, are stored at the same positions as the targets.
+ */
+public class ArrayAdjacency implements Adjacency {
+    private final PagedLongArray offsets;
+    private final PagedIntArray targets;
+    private final PagedFloatArray weights;
+
+    ArrayAdjacency(PagedLongArray offsets, PagedIntArray targets, PagedFloatArray weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int degree(int node) {
+        return (int) (offsets.get(node + 1) - offsets.get(node));
+    }
+
+    @Override
+    public long relationshipCount() {
+        return targets.size();
+    }
+
+    @Override
+    public long memoryUsage() {
+        return offsets.memoryUsage() + targets.memoryUsage() + (weights != null ? weights.memoryUsage() : 0);
+    }
+
+    @Override
+    public boolean hasWeights() {
+        return weights != null;
+    }
+
+    @Override
+    public boolean hasRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public int target(int node, int index) {
+        return targets.get(offsets.get(node) + index);
+    }
+
+    @Override
+    public AdjacencyCursor newCursor() {
+        return new Cursor();
+    }
+
+    private class Cursor implements AdjacencyCursor {
+        private long position;
+        private long end;
+
+        @Override
+        public AdjacencyCursor init(int node) {
+            position = offsets.get(node);
+            end = offsets.get(node + 1);
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public int nextTarget() {
+            return targets.get(position++);
+        }
+
+        @Override
+        public float weight() {
+            return weights != null ? weights.get(position - 1) : 1;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.maxdemarzi.processing.graph;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the relationships of a {@link Projection} that committed transactions created or deleted, so results
+ * computed on an earlier {@link Graph} can be updated instead of recomputed. Changes the relationships alone do not
+ * describe, like nodes gaining or losing a label or properties the projection reads, only mark the changes as
+ * incomplete. Nodes created with the label and deleted nodes are fine, their relationships are part of the changes.
+ */
+public class ChangeTracker implements TransactionEventHandler<ChangeTracker.Changes> {
+    // beyond that many pending relationships recomputing is cheaper than applying them one by one
+    public static final int MAX_PENDING = 1_000_000;
+    private final Projection projection;
+    private Changes pending = new Changes();
+
+    public ChangeTracker(Projection projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public Changes beforeCommit(TransactionData data) throws Exception {
+        Changes changes = new Changes();
+        try {
+            List<String> types = projection.getTypes();
+            // properties and labels of created or deleted entities are read along with the relationships
+            LongOpenHashSet nodes = new LongOpenHashSet();
+            LongOpenHashSet deletedNodes = new LongOpenHashSet();
+            for (Node node : data.createdNodes()) {
+                nodes.add(node.getId());
+            }
+            for (Node node : data.deletedNodes()) {
+                nodes.add(node.getId());
+                deletedNodes.add(node.getId());
+            }
+            LongOpenHashSet relationships = new LongOpenHashSet();
+            for (Relationship relationship : data.createdRelationships()) {
+                relationships.add(relationship.getId());
+                if (types.contains(relationship.getType().name())) {
+                    changes.createdIds.add(relationship.getId());
+                    changes.created.add(relationship.getStartNode().getId());
+                    changes.created.add(relationship.getEndNode().getId());
+                }
+            }
+            for (Relationship relationship : data.deletedRelationships()) {
+                relationships.add(relationship.getId());
+                if (types.contains(relationship.getType().name())) {
+                    changes.deleted.add(relationship.getStartNode().getId());
+                    changes.deleted.add(relationship.getEndNode().getId());
+                }
+            }
+
+            Set<String> labels = new HashSet<>();
+            for (LabelEntry entry : data.assignedLabels()) {
+                if (!nodes.contains(entry.node().getId())) labels.add(entry.label().name());
+            }
+            // also holds the labels of deleted nodes
+            List<String> projected = projection.getLabels();
+            for (LabelEntry entry : data.removedLabels()) {
+                long node = entry.node().getId();
+                if (!nodes.contains(node)) {
+                    labels.add(entry.label().name());
+                } else if (deletedNodes.contains(node) && projected.contains(entry.label().name())) {
+                    changes.deletedNodes.add(node);
+                }
+            }
+            Set<String> properties = new HashSet<>();
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                if (!nodes.contains(entry.entity().getId())) properties.add(entry.key());
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                if (!nodes.contains(entry.entity().getId())) properties.add(entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                if (!relationships.contains(entry.entity().getId())) properties.add(entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                if (!relationships.contains(entry.entity().getId())) properties.add(entry.key());
+            }
+            // folded projections connect nodes through other nodes, a single relationship changes many pairs
+            boolean folded = projection.getVia() != null && !(changes.created.isEmpty() && changes.deleted.isEmpty());
+            changes.incomplete = folded || projection.dependsOn(labels, Collections.emptySet(), properties);
+        } catch (RuntimeException e) {
+            changes.incomplete = true;
+        }
+        return changes;
+    }
+
+    @Override
+    public synchronized void afterCommit(TransactionData data, Changes changes) {
+        pending.incomplete |= changes.incomplete;
+        if (pending.incomplete || (pending.created.size() + pending.deleted.size()) / 2 > MAX_PENDING) {
+            pending.created.clear();
+            pending.createdIds.clear();
+            pending.deleted.clear();
+            pending.deletedNodes.clear();
+            pending.incomplete = true;
+            return;
+        }
+        pending.created.addAll(changes.created);
+        pending.createdIds.addAll(changes.createdIds);
+        pending.deleted.addAll(changes.deleted);
+        pending.deletedNodes.addAll(changes.deletedNodes);
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Changes changes) {
+    }
+
+    /**
+     * @return the changes committed since the last call
+     */
+    public synchronized Changes drain() {
+        Changes changes = pending;
+        pending = new Changes();
+        return changes;
+    }
+
+    public static class Changes {
+        private final LongArrayList created = new LongArrayList();
+        private final LongArrayList createdIds = new LongArrayList();
+        private final LongArrayList deleted = new LongArrayList();
+        private final LongArrayList deletedNodes = new LongArrayList();
+        private boolean incomplete;
+
+        // start and end node ids of the created relationships, one pair after the other
+        public LongArrayList created() {
+            return created;
+        }
+
+        // ids of the created relationships, in the order of their pairs
+        public LongArrayList createdRelationships() {
+            return createdIds;
+        }
+
+        // start and end node ids of the deleted relationships, one pair after the other
+        public LongArrayList deleted() {
+            return deleted;
+        }
+
+        // ids of the deleted nodes that had a label of the projection, a node with several of them may be listed twice
+        public LongArrayList deletedNodes() {
+            return deletedNodes;
+        }
+
+        public boolean isEmpty() {
+            return created.isEmpty() && deleted.isEmpty() && deletedNodes.isEmpty() && !incomplete;
+        }
+
+        /**
+         * @return whether the projection may have changed in ways the relationships do not describe
+         */
+        public boolean isIncomplete() {
+            return incomplete;
+        }
+    }
+}
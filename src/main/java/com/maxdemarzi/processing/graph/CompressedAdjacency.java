@@ -0,0 +1,148 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.paged.PagedByteArray;
+import com.maxdemarzi.processing.paged.PagedFloatArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Every neighbour list is sorted and stored as its degree followed by the gaps between consecutive targets,
+ * all as variable length integers of 7 bits per byte. Neighbours of most nodes are close in id space,
+ * so a target mostly takes one or two bytes instead of four.
+ * Weights stay uncompressed, the weights of node n start at weightOffsets[n].
+ */
+public class CompressedAdjacency implements Adjacency {
+    private final PagedLongArray offsets;
+    private final PagedByteArray bytes;
+    private final long relationshipCount;
+    private final PagedLongArray weightOffsets;
+    private final PagedFloatArray weights;
+
+    CompressedAdjacency(PagedLongArray offsets, PagedByteArray bytes, long relationshipCount, PagedLongArray weightOffsets, PagedFloatArray weights) {
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.relationshipCount = relationshipCount;
+        this.weightOffsets = weightOffsets;
+        this.weights = weights;
+    }
+
+    /**
+     * Sorts targets[0 .. length) in place, together with their weights unless those are null, and appends the encoded list to out.
+     * @return the number of bytes written
+     */
+    static int encode(int[] targets, float[] weights, int length, ByteArrayList out) {
+        int size = out.size();
+        if (weights == null) {
+            IntArrays.quickSort(targets, 0, length);
+        } else {
+            Arrays.quickSort(0, length, new AbstractIntComparator() {
+                @Override
+                public int compare(int a, int b) {
+                    return Integer.compare(targets[a], targets[b]);
+                }
+            }, (a, b) -> {
+                int target = targets[a];
+                targets[a] = targets[b];
+                targets[b] = target;
+                float weight = weights[a];
+                weights[a] = weights[b];
+                weights[b] = weight;
+            });
+        }
+        writeVarInt(length, out);
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            writeVarInt(targets[i] - last, out);
+            last = targets[i];
+        }
+        return out.size() - size;
+    }
+
+    private static void writeVarInt(int value, ByteArrayList out) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    @Override
+    public int degree(int node) {
+        long position = offsets.get(node);
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    @Override
+    public long relationshipCount() {
+        return relationshipCount;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return offsets.memoryUsage() + bytes.memoryUsage()
+                + (weights != null ? weightOffsets.memoryUsage() + weights.memoryUsage() : 0);
+    }
+
+    @Override
+    public boolean hasWeights() {
+        return weights != null;
+    }
+
+    @Override
+    public AdjacencyCursor newCursor() {
+        return new Cursor();
+    }
+
+    private class Cursor implements AdjacencyCursor {
+        private long position;
+        private int remaining;
+        private int last;
+        private long weightPosition;
+
+        @Override
+        public AdjacencyCursor init(int node) {
+            position = offsets.get(node);
+            remaining = readVarInt();
+            last = 0;
+            weightPosition = weights != null ? weightOffsets.get(node) - 1 : 0;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextTarget() {
+            remaining--;
+            weightPosition++;
+            last += readVarInt();
+            return last;
+        }
+
+        @Override
+        public float weight() {
+            return weights != null ? weights.get(weightPosition) : 1;
+        }
+
+        private int readVarInt() {
+            byte b = bytes.get(position++);
+            if (b >= 0) return b;
+            int value = b & 0x7F;
+            for (int shift = 7; ; shift += 7) {
+                b = bytes.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+}
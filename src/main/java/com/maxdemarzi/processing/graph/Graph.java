@@ -0,0 +1,69 @@
+package com.maxdemarzi.processing.graph;
+
+import org.neo4j.graphdb.Direction;
+
+/**
+ * In-memory projection of all relationships of one type between nodes of one label,
+ * with forward (outgoing) and reverse (incoming) {@link Adjacency}.
+ * Nodes are addressed by their dense ids from the {@link IdMap}.
+ */
+public class Graph {
+    private final Projection projection;
+    private final IdMap idMap;
+    private final Adjacency out;
+    private final Adjacency in;
+
+    Graph(Projection projection, IdMap idMap, Adjacency out, Adjacency in) {
+        this.projection = projection;
+        this.idMap = idMap;
+        this.out = out;
+        this.in = in;
+    }
+
+    public Projection projection() {
+        return projection;
+    }
+
+    public IdMap idMap() {
+        return idMap;
+    }
+
+    public int nodeCount() {
+        return idMap.nodeCount();
+    }
+
+    public long relationshipCount() {
+        return out != null ? out.relationshipCount() : in.relationshipCount();
+    }
+
+    public long memoryUsage() {
+        return idMap.memoryUsage() + sizeOf(out) + sizeOf(in);
+    }
+
+    private static long sizeOf(Adjacency adjacency) {
+        return adjacency != null ? adjacency.memoryUsage() : 0;
+    }
+
+    public int toMappedNodeId(long originalId) {
+        return idMap.toMappedNodeId(originalId);
+    }
+
+    public long toOriginalNodeId(int mappedId) {
+        return idMap.toOriginalNodeId(mappedId);
+    }
+
+    public int degree(int node, Direction direction) {
+        switch (direction) {
+            case OUTGOING: return out.degree(node);
+            case INCOMING: return in.degree(node);
+            default: return degree(node, Direction.OUTGOING) + degree(node, Direction.INCOMING);
+        }
+    }
+
+    /**
+     * Only the directions of the {@link Projection} are loaded, the others are null.
+     */
+    public Adjacency adjacency(Direction direction) {
+        return direction == Direction.INCOMING ? in : out;
+    }
+}
@@ -0,0 +1,205 @@
+package com.maxdemarzi.processing.graph;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.event.ErrorState;
+import org.neo4j.graphdb.event.KernelEventHandler;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Loaded {@link Graph}s of one database, least recently used ones are evicted once the catalog exceeds its memory bound.
+ * A {@link GraphInvalidator} marks graphs as stale when a committed transaction touches their labels, relationship types or properties,
+ * stale graphs are reloaded on the next request.
+ * The catalog also keeps the {@link Resident} results of the database, closing the least recently used ones beyond
+ * {@link #MAX_RESIDENTS}. Clearing the catalog or shutting down the database closes all of them.
+ */
+public class GraphCatalog {
+    public static final long DEFAULT_MAX_BYTES = Runtime.getRuntime().maxMemory() / 4;
+    public static final int MAX_RESIDENTS = 16;
+    private static final Map<GraphDatabaseService, GraphCatalog> catalogs = new WeakHashMap<>();
+
+    private final long maxBytes;
+    private final LinkedHashMap<Projection, Entry> graphs = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<List<Object>, Resident> residents = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long version;
+
+    public GraphCatalog(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized GraphCatalog forDatabase(GraphDatabaseService db) {
+        GraphCatalog catalog = catalogs.get(db);
+        if (catalog == null) {
+            catalog = new GraphCatalog(DEFAULT_MAX_BYTES);
+            db.registerTransactionEventHandler(new GraphInvalidator(catalog));
+            db.registerKernelEventHandler(new Shutdown(db, catalog));
+            catalogs.put(db, catalog);
+        }
+        return catalog;
+    }
+
+    public static Graph load(GraphDatabaseService db, ExecutorService pool, String label, String type, Direction direction) {
+        return load(db, pool, new Projection(label, type, direction));
+    }
+
+    public static Graph load(GraphDatabaseService db, ExecutorService pool, Projection projection) {
+        return forDatabase(db).get(projection, () -> new GraphLoader(db, pool).load(projection));
+    }
+
+    public Graph get(Projection projection, Supplier<Graph> loader) {
+        Graph graph = find(projection);
+        if (graph == null) {
+            long loadVersion = version();
+            graph = loader.get();
+            put(graph, loadVersion);
+        }
+        return graph;
+    }
+
+    private synchronized long version() {
+        return version;
+    }
+
+    // a graph loaded in both directions can answer requests for either one
+    private synchronized Graph find(Projection projection) {
+        for (Projection candidate : Arrays.asList(projection, projection.withDirection(Direction.BOTH))) {
+            Entry entry = graphs.get(candidate);
+            if (entry == null) continue;
+            if (!entry.stale) return entry.graph;
+            remove(candidate);
+        }
+        return null;
+    }
+
+    // a transaction committed while loading might not be part of the graph, so it only serves the current request
+    private synchronized void put(Graph graph, long loadVersion) {
+        remove(graph.projection());
+        Entry entry = new Entry(graph);
+        entry.stale = loadVersion != version;
+        graphs.put(graph.projection(), entry);
+        bytes += graph.memoryUsage();
+
+        Iterator<Map.Entry<Projection, Entry>> it = graphs.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Projection, Entry> eldest = it.next();
+            if (eldest.getValue().graph == graph) break;
+            bytes -= eldest.getValue().graph.memoryUsage();
+            it.remove();
+        }
+    }
+
+    public synchronized boolean remove(Projection projection) {
+        Entry entry = graphs.remove(projection);
+        if (entry == null) return false;
+        bytes -= entry.graph.memoryUsage();
+        return true;
+    }
+
+    public synchronized void clear() {
+        graphs.clear();
+        bytes = 0;
+        for (Resident resident : residents.values()) {
+            resident.close();
+        }
+        residents.clear();
+    }
+
+    /**
+     * @return the resident results of the kind for the projection, null if there are none
+     */
+    public synchronized <T extends Resident> T resident(Class<T> kind, Projection projection) {
+        return kind.cast(residents.get(Arrays.asList(kind, projection)));
+    }
+
+    // replaces the resident results of the same kind and projection, closing them
+    public synchronized void putResident(Resident resident) {
+        Resident previous = residents.put(Arrays.asList(resident.getClass(), resident.projection()), resident);
+        if (previous != null && previous != resident) previous.close();
+
+        Iterator<Resident> it = residents.values().iterator();
+        while (residents.size() > MAX_RESIDENTS) {
+            Resident eldest = it.next();
+            it.remove();
+            eldest.close();
+        }
+    }
+
+    public synchronized void invalidate(Set<String> labels, Set<String> types, Set<String> properties) {
+        version++;
+        for (Entry entry : graphs.values()) {
+            if (entry.graph.projection().dependsOn(labels, types, properties)) {
+                entry.stale = true;
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        for (Entry entry : graphs.values()) {
+            entry.stale = true;
+        }
+    }
+
+    public synchronized long memoryUsage() {
+        return bytes;
+    }
+
+    public synchronized List<String> describe() {
+        List<String> lines = new ArrayList<>(graphs.size());
+        for (Entry entry : graphs.values()) {
+            Graph graph = entry.graph;
+            lines.add(graph.projection().getName() + " nodes: " + graph.nodeCount() + " relationships: " + graph.relationshipCount()
+                    + " bytes: " + graph.memoryUsage() + (entry.stale ? " stale" : ""));
+        }
+        for (Resident resident : residents.values()) {
+            lines.add(resident.projection().getName() + " resident: " + resident.getClass().getSimpleName());
+        }
+        return lines;
+    }
+
+    // the catalog holds on to its database through the residents, so it is dropped when the database shuts down
+    private static class Shutdown implements KernelEventHandler {
+        private final GraphDatabaseService db;
+        private final GraphCatalog catalog;
+
+        Shutdown(GraphDatabaseService db, GraphCatalog catalog) {
+            this.db = db;
+            this.catalog = catalog;
+        }
+
+        @Override
+        public void beforeShutdown() {
+            synchronized (GraphCatalog.class) {
+                catalogs.remove(db);
+            }
+            catalog.clear();
+        }
+
+        @Override
+        public Object getResource() {
+            return null;
+        }
+
+        @Override
+        public void kernelPanic(ErrorState error) {
+        }
+
+        @Override
+        public ExecutionOrder orderComparedTo(KernelEventHandler other) {
+            return ExecutionOrder.DOESNT_MATTER;
+        }
+    }
+
+    private static class Entry {
+        private final Graph graph;
+        private volatile boolean stale;
+
+        Entry(Graph graph) {
+            this.graph = graph;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.maxdemarzi.processing.graph;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the labels, relationship types and property keys a transaction touches and marks the matching graphs
+ * of the {@link GraphCatalog} as stale once it has committed.
+ */
+public class GraphInvalidator implements TransactionEventHandler<GraphInvalidator.Changes> {
+    private final GraphCatalog catalog;
+
+    public GraphInvalidator(GraphCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public Changes beforeCommit(TransactionData data) throws Exception {
+        Changes changes = new Changes();
+        try {
+            for (Node node : data.createdNodes()) {
+                for (Label label : node.getLabels()) {
+                    changes.labels.add(label.name());
+                }
+            }
+            for (LabelEntry entry : data.assignedLabels()) {
+                changes.labels.add(entry.label().name());
+            }
+            // also holds the labels of deleted nodes
+            for (LabelEntry entry : data.removedLabels()) {
+                changes.labels.add(entry.label().name());
+            }
+            for (Relationship relationship : data.createdRelationships()) {
+                changes.types.add(relationship.getType().name());
+            }
+            for (Relationship relationship : data.deletedRelationships()) {
+                changes.types.add(relationship.getType().name());
+            }
+            // weights and filters of projections read properties
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                changes.properties.add(entry.key());
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                changes.properties.add(entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                changes.properties.add(entry.key());
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                changes.properties.add(entry.key());
+            }
+        } catch (RuntimeException e) {
+            changes.unknown = true;
+        }
+        return changes;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Changes changes) {
+        if (changes.unknown) {
+            catalog.invalidateAll();
+        } else if (!changes.labels.isEmpty() || !changes.types.isEmpty() || !changes.properties.isEmpty()) {
+            catalog.invalidate(changes.labels, changes.types, changes.properties);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Changes changes) {
+    }
+
+    static class Changes {
+        private final Set<String> labels = new HashSet<>();
+        private final Set<String> types = new HashSet<>();
+        private final Set<String> properties = new HashSet<>();
+        private boolean unknown;
+    }
+}
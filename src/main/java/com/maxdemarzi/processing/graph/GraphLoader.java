@@ -0,0 +1,689 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.BatchRunnable;
+import com.maxdemarzi.processing.OpsRunner;
+import com.maxdemarzi.processing.Utils;
+import com.maxdemarzi.processing.paged.PagedByteArray;
+import com.maxdemarzi.processing.paged.PagedFloatArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.StatementConstants;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.api.store.RelationshipIterator;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Builds a {@link Graph} in a single parallel pass, either expanding the relationships of every labeled node
+ * or scanning the whole relationship store, whichever the counts store estimates to be cheaper.
+ * Node and relationship filters are evaluated during that pass, so filtered entities never take up memory.
+ * The reverse adjacency is transposed in memory from the forward one.
+ * Compressed projections encode the neighbour lists of every batch on its own and then copy the buffers behind each other.
+ * Weight properties are read once per relationship into a float column next to the targets.
+ */
+public class GraphLoader {
+    public static final int BATCH_SIZE = 10_000;
+    public static final int SCAN_BATCH_SIZE = 100_000;
+    // following the relationship chain of a node jumps around the store, a scan reads it sequentially
+    public static final int RANDOM_ACCESS_COST = 4;
+    private final GraphDatabaseAPI db;
+    private final ExecutorService pool;
+    private final Strategy strategy;
+
+    public enum Strategy {
+        // expands the relationships of every labeled node
+        EXPAND,
+        // reads every relationship in the store once
+        SCAN
+    }
+
+    public GraphLoader(GraphDatabaseService db, ExecutorService pool) {
+        this(db, pool, null);
+    }
+
+    /**
+     * @param strategy the strategy to use for every projection, or null to pick the cheaper one
+     */
+    public GraphLoader(GraphDatabaseService db, ExecutorService pool, Strategy strategy) {
+        this.db = (GraphDatabaseAPI) db;
+        this.pool = pool;
+        this.strategy = strategy;
+    }
+
+    public Graph load(String label, String type) {
+        return load(new Projection(label, type, Direction.BOTH));
+    }
+
+    public Graph load(Projection projection) {
+        if (projection.getVia() != null && projection.getWeightProperty() != null) {
+            throw new IllegalArgumentException("Folded projections can't be weighted by a property: " + projection);
+        }
+        IdMap idMap;
+        List<LoadBatch> batches = new ArrayList<>();
+        ArrayAdjacency scanned = null;
+
+        try (Transaction tx = db.beginTx()) {
+            ThreadToStatementContextBridge ctx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+            ReadOperations ops = ctx.get().readOperations();
+            int[] typeIds = typeIds(ops, projection.getTypes());
+            boolean folded = projection.getVia() != null;
+            int viaLabelId = folded ? ops.labelGetForName(projection.getVia()) : StatementConstants.NO_SUCH_LABEL;
+            int weightKeyId = projection.getWeightProperty() != null ? ops.propertyKeyGetForName(projection.getWeightProperty()) : StatementConstants.NO_SUCH_PROPERTY_KEY;
+
+            int[] labelIds = labelIds(ops, projection.getLabels());
+            Strategy strategy = strategy(ops, projection, labelIds);
+            idMap = nodes(ops, labelIds, projection);
+            PropertyFilter relationshipFilter = new PropertyFilter(ops, projection.getRelationshipFilter());
+            if (strategy == Strategy.SCAN) {
+                scanned = scan(ops, projection, typeIds, weightKeyId, relationshipFilter, idMap);
+            } else {
+                for (int start = 0; start < idMap.nodeCount(); start += BATCH_SIZE) {
+                    batches.add(new LoadBatch(ops, projection, typeIds, viaLabelId, weightKeyId, relationshipFilter, idMap, start, Math.min(idMap.nodeCount(), start + BATCH_SIZE)));
+                }
+                if (typeIds.length > 0 && (!folded || viaLabelId != StatementConstants.NO_SUCH_LABEL)) {
+                    run(batches);
+                }
+            }
+            tx.success();
+        }
+
+        int nodeCount = idMap.nodeCount();
+        boolean weighted = projection.hasWeights();
+        Adjacency out;
+        if (projection.getOrder() != NodeOrder.NATURAL) {
+            ArrayAdjacency natural = scanned != null ? scanned : toArrays(batches, nodeCount, weighted);
+            PagedIntArray order = projection.getOrder().order(natural, transpose(natural, nodeCount), nodeCount);
+            idMap = idMap.reorder(order);
+            out = relabel(natural, order, nodeCount);
+            if (projection.isCompressed()) {
+                out = compress(encoders(out, nodeCount), nodeCount, weighted);
+            }
+        } else if (projection.isCompressed()) {
+            out = compress(scanned != null ? encoders(scanned, nodeCount) : batches, nodeCount, weighted);
+        } else {
+            out = scanned != null ? scanned : toArrays(batches, nodeCount, weighted);
+        }
+        if (!projection.hasDirection(Direction.INCOMING)) {
+            return new Graph(projection, idMap, out, null);
+        }
+
+        ArrayAdjacency transposed = transpose(out, nodeCount);
+        Adjacency in = transposed;
+        if (projection.isCompressed()) {
+            in = compress(encoders(transposed, nodeCount), nodeCount, weighted);
+        }
+        if (!projection.hasDirection(Direction.OUTGOING)) {
+            return new Graph(projection, idMap, null, in);
+        }
+        return new Graph(projection, idMap, out, in);
+    }
+
+    // the types that exist, relationships of the others can't be found anyway
+    private static int[] typeIds(ReadOperations ops, List<String> types) {
+        IntArrayList typeIds = new IntArrayList(types.size());
+        for (String type : types) {
+            int typeId = ops.relationshipTypeGetForName(type);
+            if (typeId != StatementConstants.NO_SUCH_RELATIONSHIP_TYPE) {
+                typeIds.add(typeId);
+            }
+        }
+        return typeIds.toIntArray();
+    }
+
+    private static int[] labelIds(ReadOperations ops, List<String> labels) {
+        int[] labelIds = new int[labels.size()];
+        for (int i = 0; i < labelIds.length; i++) {
+            labelIds[i] = ops.labelGetForName(labels.get(i));
+        }
+        return labelIds;
+    }
+
+    /**
+     * @return the strategy the projection would be loaded with
+     */
+    public Strategy strategy(Projection projection) {
+        try (Transaction tx = db.beginTx()) {
+            ThreadToStatementContextBridge ctx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+            ReadOperations ops = ctx.get().readOperations();
+            Strategy strategy = strategy(ops, projection, labelIds(ops, projection.getLabels()));
+            tx.success();
+            return strategy;
+        }
+    }
+
+    // folded projections need the second hop from the intermediate nodes, which only the expansion has
+    private Strategy strategy(ReadOperations ops, Projection projection, int[] labelIds) {
+        if (projection.getVia() != null) return Strategy.EXPAND;
+        if (strategy != null) return strategy;
+        long scanCost = ops.relationshipsGetCount();
+        long expandCost = RANDOM_ACCESS_COST * expandedRecords(ops, labelIds);
+        Strategy chosen = scanCost < expandCost ? Strategy.SCAN : Strategy.EXPAND;
+        Log log = db.getDependencyResolver().resolveDependency(LogService.class).getUserLog(GraphLoader.class);
+        log.info("Loading %s with %s, scanning %d relationships vs. expanding an estimated %d records",
+                projection, chosen, scanCost, expandCost / RANDOM_ACCESS_COST);
+        return chosen;
+    }
+
+    // the labeled nodes and the relationships in their chains, which hold relationships of every type
+    private static long expandedRecords(ReadOperations ops, int[] labelIds) {
+        long records = 0;
+        for (int labelId : labelIds) {
+            if (labelId == StatementConstants.NO_SUCH_LABEL) continue;
+            records += ops.countsForNode(labelId)
+                    + ops.countsForRelationship(labelId, ReadOperations.ANY_RELATIONSHIP_TYPE, ReadOperations.ANY_LABEL)
+                    + ops.countsForRelationship(ReadOperations.ANY_LABEL, ReadOperations.ANY_RELATIONSHIP_TYPE, labelId);
+        }
+        return records;
+    }
+
+    // nodes of the labels that match the node filter, which is evaluated in parallel before the dense ids are assigned
+    private IdMap nodes(ReadOperations ops, int[] labelIds, Projection projection) {
+        PagedLongArray nodes = IdMap.nodes(ops, labelIds);
+        PropertyFilter nodeFilter = new PropertyFilter(ops, projection.getNodeFilter());
+        if (nodeFilter.isEmpty()) {
+            return new IdMap(nodes);
+        }
+
+        PagedByteArray accepted = new PagedByteArray(nodes.size());
+        Utils.runRanges(pool, (int) nodes.size(), (start, end) -> {
+            for (int node = start; node < end; node++) {
+                try {
+                    if (nodeFilter.node(ops, nodes.get(node))) accepted.set(node, (byte) 1);
+                } catch (EntityNotFoundException e) {
+                    // deleted since the label scan
+                }
+            }
+        });
+        PagedLongArray.Builder ids = new PagedLongArray.Builder();
+        for (long node = 0; node < nodes.size(); node++) {
+            if (accepted.get(node) == 1) ids.add(nodes.get(node));
+        }
+        return new IdMap(ids.build());
+    }
+
+    // collects the relationships per batch of relationship ids, then sorts them by their source into arrays
+    private ArrayAdjacency scan(ReadOperations ops, Projection projection, int[] typeIds, int weightKeyId,
+                                PropertyFilter relationshipFilter, IdMap idMap) {
+        List<ScanBatch> batches = new ArrayList<>();
+        List<Future> futures = new ArrayList<>();
+        if (typeIds.length > 0) {
+            PrimitiveLongIterator rels = ops.relationshipsGetAll();
+            while (rels.hasNext()) {
+                ScanBatch batch = new ScanBatch(ops, projection, typeIds, weightKeyId, relationshipFilter, idMap);
+                batches.add(batch);
+                futures.add(pool.submit(new BatchRunnable(ops, rels, SCAN_BATCH_SIZE, batch)));
+            }
+            Utils.waitForTasks(futures);
+        }
+
+        int nodeCount = idMap.nodeCount();
+        PagedIntArray degrees = new PagedIntArray(nodeCount);
+        for (ScanBatch batch : batches) {
+            for (int i = 0; i < batch.sources.size(); i++) {
+                degrees.addTo(batch.sources.getInt(i), 1);
+            }
+        }
+        PagedLongArray offsets = offsets(degrees);
+        PagedIntArray targets = new PagedIntArray(offsets.get(nodeCount));
+        PagedFloatArray weights = projection.hasWeights() ? new PagedFloatArray(offsets.get(nodeCount)) : null;
+        PagedLongArray position = new PagedLongArray(nodeCount);
+        position.copyFrom(offsets);
+        for (ScanBatch batch : batches) {
+            for (int i = 0; i < batch.sources.size(); i++) {
+                int source = batch.sources.getInt(i);
+                targets.set(position.get(source), batch.targets.getInt(i));
+                if (weights != null) weights.set(position.get(source), batch.weights.getFloat(i));
+                position.addTo(source, 1);
+            }
+        }
+        return new ArrayAdjacency(offsets, targets, weights);
+    }
+
+    private ArrayAdjacency toArrays(List<LoadBatch> batches, int nodeCount, boolean weighted) {
+        PagedIntArray degrees = new PagedIntArray(nodeCount);
+        for (LoadBatch batch : batches) {
+            batch.copyDegrees(degrees);
+        }
+        PagedLongArray offsets = offsets(degrees);
+        PagedIntArray targets = new PagedIntArray(offsets.get(nodeCount));
+        PagedFloatArray weights = weighted ? new PagedFloatArray(offsets.get(nodeCount)) : null;
+        List<Future> futures = new ArrayList<>(batches.size());
+        for (LoadBatch batch : batches) {
+            futures.add(pool.submit(() -> batch.copyTo(offsets, targets, weights)));
+        }
+        Utils.waitForTasks(futures);
+        return new ArrayAdjacency(offsets, targets, weights);
+    }
+
+    private static List<RangeEncoder> encoders(Adjacency adjacency, int nodeCount) {
+        List<RangeEncoder> encoders = new ArrayList<>();
+        for (int start = 0; start < nodeCount; start += BATCH_SIZE) {
+            encoders.add(new RangeEncoder(adjacency, start, Math.min(nodeCount, start + BATCH_SIZE)));
+        }
+        return encoders;
+    }
+
+    // renumbers the nodes, order holds the old id of every new id
+    private ArrayAdjacency relabel(Adjacency adjacency, PagedIntArray order, int nodeCount) {
+        PagedIntArray newIds = new PagedIntArray(nodeCount);
+        PagedIntArray degrees = new PagedIntArray(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            newIds.set(order.get(node), node);
+            degrees.set(node, adjacency.degree(order.get(node)));
+        }
+        PagedLongArray offsets = offsets(degrees);
+        PagedIntArray targets = new PagedIntArray(adjacency.relationshipCount());
+        PagedFloatArray weights = adjacency.hasWeights() ? new PagedFloatArray(adjacency.relationshipCount()) : null;
+        Utils.runRanges(pool, nodeCount, (start, end) -> {
+            AdjacencyCursor cursor = adjacency.newCursor();
+            for (int node = start; node < end; node++) {
+                long position = offsets.get(node);
+                for (cursor.init(order.get(node)); cursor.hasNext(); position++) {
+                    targets.set(position, newIds.get(cursor.nextTarget()));
+                    if (weights != null) weights.set(position, cursor.weight());
+                }
+            }
+        });
+        return new ArrayAdjacency(offsets, targets, weights);
+    }
+
+    private CompressedAdjacency compress(List<? extends Encoder> encoders, int nodeCount, boolean weighted) {
+        PagedIntArray sizes = new PagedIntArray(nodeCount);
+        PagedIntArray degrees = new PagedIntArray(nodeCount);
+        List<Future> futures = new ArrayList<>(encoders.size());
+        for (Encoder encoder : encoders) {
+            futures.add(pool.submit(() -> encoder.encode(sizes, degrees, weighted)));
+        }
+        Utils.waitForTasks(futures);
+
+        PagedLongArray offsets = offsets(sizes);
+        PagedByteArray bytes = new PagedByteArray(offsets.get(nodeCount));
+        PagedLongArray weightOffsets = weighted ? offsets(degrees) : null;
+        PagedFloatArray weights = weighted ? new PagedFloatArray(weightOffsets.get(nodeCount)) : null;
+        long relationshipCount = 0;
+        for (Encoder encoder : encoders) {
+            relationshipCount += encoder.relationshipCount();
+            futures.add(pool.submit(() -> encoder.copyTo(offsets, bytes, weightOffsets, weights)));
+        }
+        Utils.waitForTasks(futures);
+        return new CompressedAdjacency(offsets, bytes, relationshipCount, weightOffsets, weights);
+    }
+
+    private static ArrayAdjacency transpose(Adjacency out, int nodeCount) {
+        AdjacencyCursor cursor = out.newCursor();
+        PagedIntArray inDegrees = new PagedIntArray(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                inDegrees.addTo(cursor.nextTarget(), 1);
+            }
+        }
+        PagedLongArray inOffsets = offsets(inDegrees);
+        PagedIntArray inTargets = new PagedIntArray(out.relationshipCount());
+        PagedFloatArray inWeights = out.hasWeights() ? new PagedFloatArray(out.relationshipCount()) : null;
+        PagedLongArray position = new PagedLongArray(nodeCount);
+        position.copyFrom(inOffsets);
+        for (int node = 0; node < nodeCount; node++) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                int target = cursor.nextTarget();
+                inTargets.set(position.get(target), node);
+                if (inWeights != null) inWeights.set(position.get(target), cursor.weight());
+                position.addTo(target, 1);
+            }
+        }
+        return new ArrayAdjacency(inOffsets, inTargets, inWeights);
+    }
+
+    private void run(List<LoadBatch> batches) {
+        List<Future> futures = new ArrayList<>(batches.size());
+        for (LoadBatch batch : batches) {
+            futures.add(pool.submit(batch));
+        }
+        Utils.waitForTasks(futures);
+    }
+
+    private static PagedLongArray offsets(PagedIntArray sizes) {
+        PagedLongArray offsets = new PagedLongArray(sizes.size() + 1);
+        long offset = 0;
+        for (long node = 0; node < sizes.size(); node++) {
+            offset += sizes.get(node);
+            offsets.set(node + 1, offset);
+        }
+        return offsets;
+    }
+
+    // encodes the neighbour lists of a dense node range into a buffer of its own, writing the encoded size of every node
+    private static abstract class Encoder {
+        protected final int start;
+        protected final int end;
+        private ByteArrayList encoded;
+        private FloatArrayList encodedWeights;
+        private long relationshipCount;
+
+        Encoder(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        // appends the neighbours of node, and the weights of their relationships unless weights is null
+        abstract void neighbours(int node, IntArrayList targets, FloatArrayList weights);
+
+        void encode(PagedIntArray sizes, PagedIntArray degrees, boolean weighted) {
+            encoded = new ByteArrayList();
+            encodedWeights = weighted ? new FloatArrayList() : null;
+            IntArrayList targets = new IntArrayList();
+            FloatArrayList weights = weighted ? new FloatArrayList() : null;
+            for (int node = start; node < end; node++) {
+                targets.clear();
+                if (weighted) weights.clear();
+                neighbours(node, targets, weights);
+                int degree = targets.size();
+                relationshipCount += degree;
+                degrees.set(node, degree);
+                sizes.set(node, CompressedAdjacency.encode(targets.elements(), weighted ? weights.elements() : null, degree, encoded));
+                if (weighted) encodedWeights.addElements(encodedWeights.size(), weights.elements(), 0, degree);
+            }
+        }
+
+        long relationshipCount() {
+            return relationshipCount;
+        }
+
+        void copyTo(PagedLongArray offsets, PagedByteArray bytes, PagedLongArray weightOffsets, PagedFloatArray weights) {
+            bytes.copyFrom(offsets.get(start), encoded.elements(), encoded.size());
+            if (weights != null) weights.copyFrom(weightOffsets.get(start), encodedWeights.elements(), encodedWeights.size());
+            encoded = null;
+            encodedWeights = null;
+        }
+    }
+
+    private static class RangeEncoder extends Encoder {
+        private final AdjacencyCursor cursor;
+
+        RangeEncoder(Adjacency adjacency, int start, int end) {
+            super(start, end);
+            this.cursor = adjacency.newCursor();
+        }
+
+        @Override
+        void neighbours(int node, IntArrayList targets, FloatArrayList weights) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                targets.add(cursor.nextTarget());
+                if (weights != null) weights.add(cursor.weight());
+            }
+        }
+    }
+
+    // loads the relationships of the dense node range [start, end)
+    private static class LoadBatch extends Encoder implements Runnable, RelationshipVisitor<RuntimeException> {
+        private final ReadOperations ops;
+        private final int[] typeIds;
+        private final Direction direction;
+        private final int viaLabelId;
+        private final int weightKeyId;
+        private final float defaultWeight;
+        private final PropertyFilter relationshipFilter;
+        private final boolean folded;
+        private final IdMap idMap;
+        private final int[] degrees;
+        private IntArrayList targets = new IntArrayList();
+        private FloatArrayList weights;
+        private int position;
+        private long current;
+        private long intermediate;
+        private long firstHop;
+        private int notFound;
+        // second hop of a folded projection, every other relationship of the intermediate node leads to a neighbour
+        private final RelationshipVisitor<RuntimeException> secondHop = (relId, type, startNode, endNode) -> {
+            if (relId != firstHop && accept(relId)) add(startNode == intermediate ? endNode : startNode);
+        };
+
+        LoadBatch(ReadOperations ops, Projection projection, int[] typeIds, int viaLabelId, int weightKeyId,
+                  PropertyFilter relationshipFilter, IdMap idMap, int start, int end) {
+            super(start, end);
+            this.ops = ops;
+            this.typeIds = typeIds;
+            this.direction = projection.getOrientation().direction();
+            this.relationshipFilter = relationshipFilter;
+            this.viaLabelId = viaLabelId;
+            this.weightKeyId = weightKeyId;
+            this.defaultWeight = (float) projection.getDefaultWeight();
+            this.folded = projection.getVia() != null;
+            this.idMap = idMap;
+            this.degrees = new int[end - start];
+            this.weights = projection.hasWeights() ? new FloatArrayList() : null;
+        }
+
+        public void run() {
+            for (int node = start; node < end; node++) {
+                int first = targets.size();
+                try {
+                    current = idMap.toOriginalNodeId(node);
+                    RelationshipIterator rels = ops.nodeGetRelationships(current, direction, typeIds);
+                    while (rels.hasNext()) {
+                        rels.relationshipVisit(rels.next(), this);
+                    }
+                } catch (EntityNotFoundException e) {
+                    notFound++;
+                }
+                if (folded && weights != null) {
+                    countDuplicates(first);
+                }
+                degrees[node - start] = targets.size() - first;
+            }
+            if (notFound > 0) System.err.println("Entities not found " + notFound);
+        }
+
+        @Override
+        public void visit(long relId, int type, long startNode, long endNode) {
+            if (!accept(relId)) return;
+            long other = startNode == current ? endNode : startNode;
+            if (!folded) {
+                if (add(other) && weights != null) {
+                    weights.add(weight(relId));
+                }
+                return;
+            }
+            try {
+                if (!ops.nodeHasLabel(other, viaLabelId)) return;
+                firstHop = relId;
+                intermediate = other;
+                RelationshipIterator rels = ops.nodeGetRelationships(other, direction.reverse(), typeIds);
+                while (rels.hasNext()) {
+                    rels.relationshipVisit(rels.next(), secondHop);
+                }
+            } catch (EntityNotFoundException e) {
+                notFound++;
+            }
+        }
+
+        private boolean accept(long relId) {
+            if (relationshipFilter.isEmpty()) return true;
+            try {
+                return relationshipFilter.relationship(ops, relId);
+            } catch (EntityNotFoundException e) {
+                notFound++;
+                return false;
+            }
+        }
+
+        private boolean add(long nodeId) {
+            int target = idMap.toMappedNodeId(nodeId);
+            if (target != -1) {
+                targets.add(target);
+            }
+            return target != -1;
+        }
+
+        private float weight(long relId) {
+            try {
+                return GraphLoader.weight(ops, relId, weightKeyId, defaultWeight);
+            } catch (EntityNotFoundException e) {
+                notFound++;
+                return defaultWeight;
+            }
+        }
+
+        // collapses the folded relationships of one node into a single one per neighbour, weighted by their count
+        private void countDuplicates(int first) {
+            int[] elements = targets.elements();
+            IntArrays.quickSort(elements, first, targets.size());
+            int distinct = first;
+            for (int i = first; i < targets.size(); i++) {
+                if (distinct > first && elements[i] == elements[distinct - 1]) {
+                    weights.set(weights.size() - 1, weights.getFloat(weights.size() - 1) + 1);
+                } else {
+                    elements[distinct++] = elements[i];
+                    weights.add(1);
+                }
+            }
+            targets.size(distinct);
+        }
+
+        void copyDegrees(PagedIntArray allDegrees) {
+            for (int node = start; node < end; node++) {
+                allDegrees.set(node, degrees[node - start]);
+            }
+        }
+
+        void copyTo(PagedLongArray offsets, PagedIntArray allTargets, PagedFloatArray allWeights) {
+            allTargets.copyFrom(offsets.get(start), targets.elements(), targets.size());
+            if (allWeights != null) allWeights.copyFrom(offsets.get(start), weights.elements(), weights.size());
+            targets = null;
+            weights = null;
+        }
+
+        @Override
+        void neighbours(int node, IntArrayList targetBuffer, FloatArrayList weightBuffer) {
+            if (node == start) {
+                position = 0;
+            }
+            int count = degrees[node - start];
+            targetBuffer.addElements(targetBuffer.size(), targets.elements(), position, count);
+            if (weightBuffer != null) weightBuffer.addElements(weightBuffer.size(), weights.elements(), position, count);
+            position += count;
+            if (node == end - 1) {
+                targets = null;
+                weights = null;
+            }
+        }
+    }
+
+    private static float weight(ReadOperations ops, long relId, int weightKeyId, float defaultWeight) throws EntityNotFoundException {
+        if (weightKeyId == StatementConstants.NO_SUCH_PROPERTY_KEY) return defaultWeight;
+        Object value = ops.relationshipGetProperty(relId, weightKeyId);
+        return value instanceof Number ? ((Number) value).floatValue() : defaultWeight;
+    }
+
+    // the relationships of a range of relationship ids, as pairs of dense source and target ids
+    private static class ScanBatch implements OpsRunner, RelationshipVisitor<EntityNotFoundException> {
+        private final ReadOperations ops;
+        private final int[] typeIds;
+        private final Orientation orientation;
+        private final int weightKeyId;
+        private final float defaultWeight;
+        private final PropertyFilter relationshipFilter;
+        private final IdMap idMap;
+        private final IntArrayList sources = new IntArrayList();
+        private final IntArrayList targets = new IntArrayList();
+        private final FloatArrayList weights;
+
+        ScanBatch(ReadOperations ops, Projection projection, int[] typeIds, int weightKeyId, PropertyFilter relationshipFilter, IdMap idMap) {
+            this.ops = ops;
+            this.typeIds = typeIds;
+            this.orientation = projection.getOrientation();
+            this.weightKeyId = weightKeyId;
+            this.defaultWeight = (float) projection.getDefaultWeight();
+            this.relationshipFilter = relationshipFilter;
+            this.idMap = idMap;
+            this.weights = projection.hasWeights() ? new FloatArrayList() : null;
+        }
+
+        @Override
+        public void run(long relId) throws EntityNotFoundException {
+            ops.relationshipVisit(relId, this);
+        }
+
+        @Override
+        public void visit(long relId, int type, long startNode, long endNode) throws EntityNotFoundException {
+            if (!hasType(type)) return;
+            int start = idMap.toMappedNodeId(startNode);
+            int end = idMap.toMappedNodeId(endNode);
+            if (start == -1 || end == -1) return;
+            if (!relationshipFilter.isEmpty() && !relationshipFilter.relationship(ops, relId)) return;
+            float weight = weights != null ? weight(ops, relId, weightKeyId, defaultWeight) : 0;
+            if (orientation != Orientation.REVERSE) {
+                add(start, end, weight);
+            }
+            // loops are only loaded once, like expanding both directions of their node
+            if (orientation == Orientation.REVERSE || (orientation == Orientation.UNDIRECTED && start != end)) {
+                add(end, start, weight);
+            }
+        }
+
+        private boolean hasType(int type) {
+            for (int typeId : typeIds) {
+                if (typeId == type) return true;
+            }
+            return false;
+        }
+
+        private void add(int source, int target, float weight) {
+            sources.add(source);
+            targets.add(target);
+            if (weights != null) weights.add(weight);
+        }
+    }
+
+    // predicates that all have to match, bound to the property key ids of the database
+    private static class PropertyFilter {
+        private final List<PropertyPredicate> predicates;
+        private final int[] keyIds;
+
+        PropertyFilter(ReadOperations ops, List<PropertyPredicate> predicates) {
+            this.predicates = predicates;
+            this.keyIds = new int[predicates.size()];
+            for (int i = 0; i < keyIds.length; i++) {
+                keyIds[i] = ops.propertyKeyGetForName(predicates.get(i).getKey());
+            }
+        }
+
+        boolean isEmpty() {
+            return predicates.isEmpty();
+        }
+
+        boolean node(ReadOperations ops, long node) throws EntityNotFoundException {
+            for (int i = 0; i < keyIds.length; i++) {
+                if (keyIds[i] == StatementConstants.NO_SUCH_PROPERTY_KEY || !predicates.get(i).test(ops.nodeGetProperty(node, keyIds[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean relationship(ReadOperations ops, long relationship) throws EntityNotFoundException {
+            for (int i = 0; i < keyIds.length; i++) {
+                if (keyIds[i] == StatementConstants.NO_SUCH_PROPERTY_KEY || !predicates.get(i).test(ops.relationshipGetProperty(relationship, keyIds[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
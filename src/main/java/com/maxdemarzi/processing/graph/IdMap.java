@@ -0,0 +1,140 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.paged.PagedArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.StatementConstants;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Arrays;
+
+/**
+ * Maps the node ids of one or more labels to the dense range 0 .. nodeCount-1 and back,
+ * so arrays only need to be as large as the label instead of the whole node store.
+ * Node ids are 64 bit, the dense ids of a single label stay within an int.
+ * The reverse mapping is a sparse paged array over the node id range, pages are only allocated
+ * for id ranges that contain nodes of the label.
+ */
+public class IdMap {
+    private static final int[] EMPTY_PAGE = new int[0];
+    private final PagedLongArray originalIds;
+    private final int[][] mappedPages;
+    private int allocatedPages;
+
+    public IdMap(PagedLongArray originalIds) {
+        if (originalIds.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A label with " + originalIds.size() + " nodes does not fit into int node ids");
+        }
+        this.originalIds = originalIds;
+        if (originalIds.size() == 0) {
+            this.mappedPages = new int[0][];
+            return;
+        }
+        long maxId = 0;
+        for (long node = 0; node < originalIds.size(); node++) {
+            maxId = Math.max(maxId, originalIds.get(node));
+        }
+        long pages = (maxId >>> PagedArray.PAGE_SHIFT) + 1;
+        this.mappedPages = new int[(int) pages][];
+        Arrays.fill(mappedPages, EMPTY_PAGE);
+        for (int node = 0; node < originalIds.size(); node++) {
+            long originalId = originalIds.get(node);
+            int page = (int) (originalId >>> PagedArray.PAGE_SHIFT);
+            if (mappedPages[page] == EMPTY_PAGE) {
+                mappedPages[page] = new int[PagedArray.PAGE_SIZE];
+                Arrays.fill(mappedPages[page], -1);
+                allocatedPages++;
+            }
+            mappedPages[page][(int) (originalId & PagedArray.PAGE_MASK)] = node;
+        }
+    }
+
+    public static IdMap load(ReadOperations ops, int labelId) {
+        return new IdMap(nodes(ops, labelId));
+    }
+
+    /**
+     * @return the ids of the nodes with any of the labels, nodes with several of them only once
+     */
+    public static PagedLongArray nodes(ReadOperations ops, int... labelIds) {
+        PagedLongArray.Builder ids = new PagedLongArray.Builder();
+        for (int i = 0; i < labelIds.length; i++) {
+            if (labelIds[i] == StatementConstants.NO_SUCH_LABEL) continue;
+            PrimitiveLongIterator it = ops.nodesGetForLabel(labelIds[i]);
+            while (it.hasNext()) {
+                long node = it.next();
+                if (!hasAnyLabel(ops, node, labelIds, i)) {
+                    ids.add(node);
+                }
+            }
+        }
+        return ids.build();
+    }
+
+    // whether the node was already found with one of the first count labels
+    private static boolean hasAnyLabel(ReadOperations ops, long node, int[] labelIds, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                if (labelIds[i] != StatementConstants.NO_SUCH_LABEL && ops.nodeHasLabel(node, labelIds[i])) return true;
+            }
+        } catch (EntityNotFoundException e) {
+            return true;
+        }
+        return false;
+    }
+
+    public static IdMap load(GraphDatabaseService db, String label) {
+        try (Transaction tx = db.beginTx()) {
+            ThreadToStatementContextBridge ctx = ((GraphDatabaseAPI) db).getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+            ReadOperations ops = ctx.get().readOperations();
+            IdMap idMap = load(ops, ops.labelGetForName(label));
+            tx.success();
+            return idMap;
+        }
+    }
+
+    /**
+     * @param order the old dense id of every new dense id
+     */
+    public IdMap reorder(PagedIntArray order) {
+        PagedLongArray reordered = new PagedLongArray(originalIds.size());
+        for (long node = 0; node < reordered.size(); node++) {
+            reordered.set(node, originalIds.get(order.get(node)));
+        }
+        return new IdMap(reordered);
+    }
+
+    public int nodeCount() {
+        return (int) originalIds.size();
+    }
+
+    public boolean contains(long originalId) {
+        return toMappedNodeId(originalId) != -1;
+    }
+
+    /**
+     * @return the dense id of the node or -1 if it does not have the label
+     */
+    public int toMappedNodeId(long originalId) {
+        long page = originalId >>> PagedArray.PAGE_SHIFT;
+        if (page >= mappedPages.length) {
+            return -1;
+        }
+        int[] mapped = mappedPages[(int) page];
+        return mapped == EMPTY_PAGE ? -1 : mapped[(int) (originalId & PagedArray.PAGE_MASK)];
+    }
+
+    public long toOriginalNodeId(int mappedId) {
+        return originalIds.get(mappedId);
+    }
+
+    public long memoryUsage() {
+        return originalIds.memoryUsage() + 8L * mappedPages.length + 4L * PagedArray.PAGE_SIZE * allocatedPages;
+    }
+}
@@ -0,0 +1,121 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.paged.PagedByteArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Order of the dense node ids of a projection. Store ids follow insertion order, so the neighbours of a node
+ * are scattered over the whole id range. Renumbering nodes that are accessed together keeps them on the same cache lines.
+ */
+public enum NodeOrder {
+    // the label scan order of the IdMap
+    NATURAL {
+        @Override
+        PagedIntArray order(Adjacency out, Adjacency in, int nodeCount) {
+            return null;
+        }
+    },
+    // highest degree first, the hubs most ranks are pushed to share a few cache lines
+    DEGREE {
+        @Override
+        PagedIntArray order(Adjacency out, Adjacency in, int nodeCount) {
+            PagedIntArray ascending = byDegree(out, in, nodeCount);
+            PagedIntArray order = new PagedIntArray(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                order.set(node, ascending.get(nodeCount - 1 - node));
+            }
+            return order;
+        }
+    },
+    // reverse Cuthill-McKee, neighbours get ids close to each other
+    BFS {
+        @Override
+        PagedIntArray order(Adjacency out, Adjacency in, int nodeCount) {
+            PagedIntArray starts = byDegree(out, in, nodeCount);
+            PagedIntArray queue = new PagedIntArray(nodeCount);
+            PagedByteArray visited = new PagedByteArray(nodeCount);
+            AdjacencyCursor[] cursors = {out.newCursor(), in.newCursor()};
+            IntArrayList neighbours = new IntArrayList();
+            AbstractIntComparator byDegree = new AbstractIntComparator() {
+                @Override
+                public int compare(int a, int b) {
+                    return Integer.compare(degree(out, in, a), degree(out, in, b));
+                }
+            };
+            int head = 0, tail = 0;
+
+            for (int i = 0; i < nodeCount; i++) {
+                int start = starts.get(i);
+                if (visited.get(start) != 0) continue;
+                visited.set(start, (byte) 1);
+                queue.set(tail++, start);
+                while (head < tail) {
+                    int node = queue.get(head++);
+                    neighbours.clear();
+                    for (AdjacencyCursor cursor : cursors) {
+                        for (cursor.init(node); cursor.hasNext(); ) {
+                            int neighbour = cursor.nextTarget();
+                            if (visited.get(neighbour) == 0) {
+                                visited.set(neighbour, (byte) 1);
+                                neighbours.add(neighbour);
+                            }
+                        }
+                    }
+                    int[] elements = neighbours.elements();
+                    IntArrays.quickSort(elements, 0, neighbours.size(), byDegree);
+                    for (int j = 0; j < neighbours.size(); j++) {
+                        queue.set(tail++, elements[j]);
+                    }
+                }
+            }
+
+            PagedIntArray order = new PagedIntArray(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                order.set(node, queue.get(nodeCount - 1 - node));
+            }
+            return order;
+        }
+    };
+
+    /**
+     * @return the old dense id of every new dense id, or null to keep the ids as they are
+     */
+    abstract PagedIntArray order(Adjacency out, Adjacency in, int nodeCount);
+
+    public static NodeOrder from(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    private static int degree(Adjacency out, Adjacency in, int node) {
+        return out.degree(node) + in.degree(node);
+    }
+
+    // counting sort of the nodes by ascending degree, ties keep their current order
+    private static PagedIntArray byDegree(Adjacency out, Adjacency in, int nodeCount) {
+        int maxDegree = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            maxDegree = Math.max(maxDegree, degree(out, in, node));
+        }
+        PagedLongArray positions = new PagedLongArray(maxDegree + 1L);
+        for (int node = 0; node < nodeCount; node++) {
+            positions.addTo(degree(out, in, node), 1);
+        }
+        long position = 0;
+        for (int degree = 0; degree <= maxDegree; degree++) {
+            long count = positions.get(degree);
+            positions.set(degree, position);
+            position += count;
+        }
+        PagedIntArray sorted = new PagedIntArray(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            int degree = degree(out, in, node);
+            sorted.set(positions.get(degree), node);
+            positions.addTo(degree, 1);
+        }
+        return sorted;
+    }
+}
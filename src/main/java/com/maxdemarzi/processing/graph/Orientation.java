@@ -0,0 +1,30 @@
+package com.maxdemarzi.processing.graph;
+
+import org.neo4j.graphdb.Direction;
+
+/**
+ * How the stored relationships of a projection become its outgoing relationships.
+ */
+public enum Orientation {
+    // as stored, from the start to the end node
+    NATURAL(Direction.OUTGOING),
+    // from the end to the start node
+    REVERSE(Direction.INCOMING),
+    // both ways, every relationship is loaded as an outgoing relationship of both of its nodes
+    UNDIRECTED(Direction.BOTH);
+
+    private final Direction direction;
+
+    Orientation(Direction direction) {
+        this.direction = direction;
+    }
+
+    // the relationships of a node that become its outgoing relationships in the projection
+    public Direction direction() {
+        return direction;
+    }
+
+    public static Orientation from(String name) {
+        return valueOf(name.toUpperCase());
+    }
+}
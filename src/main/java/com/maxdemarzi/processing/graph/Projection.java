@@ -0,0 +1,232 @@
+package com.maxdemarzi.processing.graph;
+
+import org.neo4j.graphdb.Direction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describes which part of the database a {@link Graph} holds, used as the key of the {@link GraphCatalog}.
+ * Label and type may list several names separated by |, like KNOWS|WORKS_WITH.
+ * Projections are immutable, the with methods return a changed copy.
+ */
+public class Projection {
+    private final String label;
+    private final String type;
+    private Direction direction;
+    private boolean compressed;
+    private NodeOrder order = NodeOrder.NATURAL;
+    private String via;
+    private boolean weighted;
+    private String weightProperty;
+    private double defaultWeight = 1;
+    private Orientation orientation = Orientation.NATURAL;
+    private List<PropertyPredicate> nodeFilter = Collections.emptyList();
+    private List<PropertyPredicate> relationshipFilter = Collections.emptyList();
+
+    public Projection(String label, String type, Direction direction) {
+        this.label = label;
+        this.type = type;
+        this.direction = direction;
+    }
+
+    private Projection(Projection other) {
+        this.label = other.label;
+        this.type = other.type;
+        this.direction = other.direction;
+        this.compressed = other.compressed;
+        this.order = other.order;
+        this.via = other.via;
+        this.weighted = other.weighted;
+        this.weightProperty = other.weightProperty;
+        this.defaultWeight = other.defaultWeight;
+        this.orientation = other.orientation;
+        this.nodeFilter = other.nodeFilter;
+        this.relationshipFilter = other.relationshipFilter;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<String> getLabels() {
+        return Arrays.asList(label.split("\\|"));
+    }
+
+    public List<String> getTypes() {
+        return Arrays.asList(type.split("\\|"));
+    }
+
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    // only nodes matching all predicates are part of the projection
+    public List<PropertyPredicate> getNodeFilter() {
+        return nodeFilter;
+    }
+
+    // only relationships matching all predicates are part of the projection
+    public List<PropertyPredicate> getRelationshipFilter() {
+        return relationshipFilter;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Compressed projections keep their neighbour lists as {@link CompressedAdjacency}, which needs a fraction of the memory
+     * but has to be decoded while iterating.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public NodeOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Folded projections connect two nodes of the label that share a neighbour with the via label,
+     * like (a:Label)-[:TYPE]->(:Via)<-[:TYPE]-(b:Label), without those relationships existing in the store.
+     * @return the label of the intermediate nodes, or null for a projection of the relationships themselves
+     */
+    public String getVia() {
+        return via;
+    }
+
+    /**
+     * @return the relationship property read into the weights of the projection, or null
+     */
+    public String getWeightProperty() {
+        return weightProperty;
+    }
+
+    /**
+     * The weight of relationships without a numeric value for the weight property.
+     */
+    public double getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * Weighted folded projections keep a single relationship per pair of nodes, weighted by the number of shared
+     * intermediate nodes. Unweighted ones keep one relationship per intermediate node.
+     * Projections with a weight property take the weights from the relationships.
+     */
+    public boolean hasWeights() {
+        return weightProperty != null || (via != null && weighted);
+    }
+
+    public boolean hasDirection(Direction direction) {
+        return this.direction == Direction.BOTH || this.direction == direction;
+    }
+
+    public Projection withDirection(Direction direction) {
+        Projection projection = new Projection(this);
+        projection.direction = direction;
+        return projection;
+    }
+
+    public Projection withCompression(boolean compressed) {
+        Projection projection = new Projection(this);
+        projection.compressed = compressed;
+        return projection;
+    }
+
+    public Projection withOrder(NodeOrder order) {
+        Projection projection = new Projection(this);
+        projection.order = order;
+        return projection;
+    }
+
+    public Projection withVia(String via, boolean weighted) {
+        Projection projection = new Projection(this);
+        projection.via = via;
+        projection.weighted = weighted;
+        return projection;
+    }
+
+    public Projection withWeight(String weightProperty, double defaultWeight) {
+        Projection projection = new Projection(this);
+        projection.weightProperty = weightProperty;
+        projection.defaultWeight = defaultWeight;
+        return projection;
+    }
+
+    public Projection withOrientation(Orientation orientation) {
+        Projection projection = new Projection(this);
+        projection.orientation = orientation;
+        return projection;
+    }
+
+    public Projection withFilters(List<PropertyPredicate> nodeFilter, List<PropertyPredicate> relationshipFilter) {
+        Projection projection = new Projection(this);
+        projection.nodeFilter = nodeFilter;
+        projection.relationshipFilter = relationshipFilter;
+        return projection;
+    }
+
+    /**
+     * @return whether changes to these labels, relationship types or property keys can change the projection
+     */
+    public boolean dependsOn(Set<String> labels, Set<String> types, Set<String> properties) {
+        for (String name : getLabels()) {
+            if (labels.contains(name)) return true;
+        }
+        for (String name : getTypes()) {
+            if (types.contains(name)) return true;
+        }
+        if (via != null && labels.contains(via)) return true;
+        if (weightProperty != null && properties.contains(weightProperty)) return true;
+        for (PropertyPredicate predicate : nodeFilter) {
+            if (properties.contains(predicate.getKey())) return true;
+        }
+        for (PropertyPredicate predicate : relationshipFilter) {
+            if (properties.contains(predicate.getKey())) return true;
+        }
+        return false;
+    }
+
+    public String getName() {
+        return label + "-" + type + (via != null ? "-" + via + (weighted ? "-weighted" : "") : "") + "-" + direction.name()
+                + (orientation != Orientation.NATURAL ? "-" + orientation.name().toLowerCase() : "")
+                + (weightProperty != null ? "-" + weightProperty + "=" + defaultWeight : "")
+                + (!nodeFilter.isEmpty() ? "-nodes" + nodeFilter : "")
+                + (!relationshipFilter.isEmpty() ? "-relationships" + relationshipFilter : "")
+                + (compressed ? "-compressed" : "")
+                + (order != NodeOrder.NATURAL ? "-" + order.name().toLowerCase() : "");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Projection that = (Projection) o;
+        return label.equals(that.label) && type.equals(that.type) && direction == that.direction
+                && compressed == that.compressed && order == that.order
+                && Objects.equals(via, that.via) && (via == null || weighted == that.weighted)
+                && Objects.equals(weightProperty, that.weightProperty)
+                && (weightProperty == null || defaultWeight == that.defaultWeight)
+                && orientation == that.orientation
+                && nodeFilter.equals(that.nodeFilter) && relationshipFilter.equals(that.relationshipFilter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(label, type, direction, compressed, order, via, weightProperty, orientation, nodeFilter, relationshipFilter);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
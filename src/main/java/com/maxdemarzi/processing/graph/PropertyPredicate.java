@@ -0,0 +1,121 @@
+package com.maxdemarzi.processing.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A comparison of a node or relationship property with a constant, like born>1960 or name='Tom Hanks'.
+ * Numbers compare by value, strings lexicographically, other values only by equality.
+ * Entities without the property never match.
+ */
+public class PropertyPredicate {
+    public enum Operator {
+        // two character operators first, so parsing finds them before their prefixes
+        NOT_EQUALS("<>"), LESS_OR_EQUAL("<="), GREATER_OR_EQUAL(">="), EQUALS("="), LESS("<"), GREATER(">");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean matches(int comparison) {
+            switch (this) {
+                case NOT_EQUALS: return comparison != 0;
+                case LESS_OR_EQUAL: return comparison <= 0;
+                case GREATER_OR_EQUAL: return comparison >= 0;
+                case EQUALS: return comparison == 0;
+                case LESS: return comparison < 0;
+                default: return comparison > 0;
+            }
+        }
+    }
+
+    private final String key;
+    private final Operator operator;
+    private final Object value;
+
+    public PropertyPredicate(String key, Operator operator, Object value) {
+        this.key = key;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * @param predicates comma separated predicates that all have to match, null or empty for none
+     */
+    public static List<PropertyPredicate> parseAll(String predicates) {
+        if (predicates == null || predicates.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PropertyPredicate> parsed = new ArrayList<>();
+        for (String predicate : predicates.split(",")) {
+            parsed.add(parse(predicate));
+        }
+        return parsed;
+    }
+
+    public static PropertyPredicate parse(String predicate) {
+        for (Operator operator : Operator.values()) {
+            int index = predicate.indexOf(operator.symbol);
+            if (index > 0) {
+                String key = predicate.substring(0, index).trim();
+                String value = predicate.substring(index + operator.symbol.length()).trim();
+                return new PropertyPredicate(key, operator, parseValue(value));
+            }
+        }
+        throw new IllegalArgumentException("Not a property predicate: " + predicate);
+    }
+
+    private static Object parseValue(String value) {
+        if (value.length() > 1 && (value.startsWith("'") && value.endsWith("'") || value.startsWith("\"") && value.endsWith("\""))) {
+            return value.substring(1, value.length() - 1);
+        }
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean test(Object property) {
+        if (property == null) {
+            return false;
+        }
+        if (property instanceof Number && value instanceof Number) {
+            return operator.matches(Double.compare(((Number) property).doubleValue(), ((Number) value).doubleValue()));
+        }
+        if (property instanceof String && value instanceof String) {
+            return operator.matches(((String) property).compareTo((String) value));
+        }
+        boolean equal = property.equals(value);
+        return operator == Operator.EQUALS ? equal : operator == Operator.NOT_EQUALS && !equal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PropertyPredicate that = (PropertyPredicate) o;
+        return key.equals(that.key) && operator == that.operator && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, operator, value);
+    }
+
+    @Override
+    public String toString() {
+        return key + operator.symbol + (value instanceof String ? "'" + value + "'" : value);
+    }
+}
@@ -0,0 +1,12 @@
+package com.maxdemarzi.processing.graph;
+
+/**
+ * Results that stay in memory between requests and follow the changes of their projection with a {@link ChangeTracker}.
+ * The {@link GraphCatalog} of the database keeps a bounded number of them and closes the ones it drops.
+ */
+public interface Resident {
+    Projection projection();
+
+    // stops tracking the changes of the projection
+    void close();
+}
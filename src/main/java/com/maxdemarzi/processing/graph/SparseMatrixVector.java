@@ -0,0 +1,194 @@
+package com.maxdemarzi.processing.graph;
+
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.IntToDoubleFunction;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * Multiplies vectors over the nodes of a {@link Graph} by its adjacency matrix, in parallel, for the iterative
+ * algorithms that repeat multiply and normalize until their scores settle. Values flow along the relationships:
+ * with {@link Direction#OUTGOING} every node receives the values of the sources of its incoming relationships,
+ * with {@link Direction#INCOMING} the values of the targets of its outgoing ones, with BOTH the sum of the two.
+ * Relationships count with their weight on weighted projections.
+ * The {@link Kernel} decides whether the products are pulled over the opposite adjacency or scattered along the
+ * adjacency of the flow, {@link #loadDirection(Direction, Kernel)} names the directions the graph has to hold.
+ */
+public class SparseMatrixVector {
+
+    public enum Kernel {
+        // every node sums up its sources, plain stores and no extra memory
+        PULL,
+        // every node adds itself to its targets with an atomic Scatter
+        PUSH,
+        // a propagation blocked Scatter, for graphs whose vectors outgrow the cpu caches
+        BLOCKED;
+
+        public static Kernel from(String name) {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    /**
+     * Called once per node with the product of the multiplication.
+     * @return the change of the node, the largest change is returned by the multiplication
+     */
+    @FunctionalInterface
+    public interface Update {
+        double apply(int node, double product);
+    }
+
+    private final ExecutorService pool;
+    private final Graph graph;
+    private final Kernel kernel;
+    private final int nodeCount;
+    private Scatter forward;
+    private Scatter backward;
+    private PagedDoubleArray sums;
+    private PagedDoubleArray moreSums;
+
+    public SparseMatrixVector(ExecutorService pool, Graph graph, Kernel kernel) {
+        this.pool = pool;
+        this.graph = graph;
+        this.kernel = kernel;
+        this.nodeCount = graph.nodeCount();
+    }
+
+    /**
+     * @return the relationships of the projection a graph needs to multiply with values flowing in the direction
+     */
+    public static Direction loadDirection(Direction flow, Kernel kernel) {
+        return kernel == Kernel.PULL ? flow.reverse() : flow;
+    }
+
+    public Graph graph() {
+        return graph;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * The values are read while the products are handed out, updates must not write to the values they read.
+     * @return the largest change the updates returned
+     */
+    public double multiply(Direction flow, IntToDoubleFunction values, Update update) {
+        if (kernel == Kernel.PULL) {
+            return pull(flow, values, update);
+        }
+        if (flow == Direction.BOTH) {
+            scatter(Direction.OUTGOING, values, sums());
+            if (moreSums == null) moreSums = new PagedDoubleArray(nodeCount);
+            scatter(Direction.INCOMING, values, moreSums);
+            return update(node -> update.apply(node, sums.get(node) + moreSums.get(node)));
+        }
+        scatter(flow, values, sums());
+        return update(node -> update.apply(node, sums.get(node)));
+    }
+
+    private double pull(Direction flow, IntToDoubleFunction values, Update update) {
+        Adjacency first = graph.adjacency(flow == Direction.INCOMING ? Direction.OUTGOING : Direction.INCOMING);
+        Adjacency second = flow == Direction.BOTH ? graph.adjacency(Direction.OUTGOING) : null;
+        DoubleAccumulator change = new DoubleAccumulator(Math::max, 0);
+        runRanges(pool, nodeCount, (start, end) -> {
+            AdjacencyCursor firstCursor = first.newCursor();
+            AdjacencyCursor secondCursor = second != null ? second.newCursor() : null;
+            double max = 0;
+            for (int node = start; node < end; node++) {
+                double product = 0;
+                for (firstCursor.init(node); firstCursor.hasNext(); ) {
+                    product += values.applyAsDouble(firstCursor.nextTarget()) * firstCursor.weight();
+                }
+                if (secondCursor != null) {
+                    for (secondCursor.init(node); secondCursor.hasNext(); ) {
+                        product += values.applyAsDouble(secondCursor.nextTarget()) * secondCursor.weight();
+                    }
+                }
+                max = Math.max(max, update.apply(node, product));
+            }
+            change.accumulate(max);
+        });
+        return change.get();
+    }
+
+    // the scatters bin their adjacency once and are reused by every multiplication
+    private void scatter(Direction direction, IntToDoubleFunction values, PagedDoubleArray target) {
+        if (direction == Direction.OUTGOING) {
+            if (forward == null) forward = Scatter.create(pool, graph.adjacency(Direction.OUTGOING), nodeCount, kernel == Kernel.BLOCKED);
+            forward.scatter(values, target);
+        } else {
+            if (backward == null) backward = Scatter.create(pool, graph.adjacency(Direction.INCOMING), nodeCount, kernel == Kernel.BLOCKED);
+            backward.scatter(values, target);
+        }
+    }
+
+    private PagedDoubleArray sums() {
+        if (sums == null) sums = new PagedDoubleArray(nodeCount);
+        return sums;
+    }
+
+    /**
+     * Applies the update to every node in parallel.
+     * @return the largest result
+     */
+    public double update(IntToDoubleFunction update) {
+        DoubleAccumulator change = new DoubleAccumulator(Math::max, 0);
+        runRanges(pool, nodeCount, (start, end) -> {
+            double max = 0;
+            for (int node = start; node < end; node++) {
+                max = Math.max(max, update.applyAsDouble(node));
+            }
+            change.accumulate(max);
+        });
+        return change.get();
+    }
+
+    public double sum(IntToDoubleFunction values) {
+        DoubleAdder total = new DoubleAdder();
+        runRanges(pool, nodeCount, (start, end) -> {
+            double sum = 0;
+            for (int node = start; node < end; node++) {
+                sum += values.applyAsDouble(node);
+            }
+            total.add(sum);
+        });
+        return total.sum();
+    }
+
+    /**
+     * @return the summed weights of the relationships of every node in the direction, or their count on
+     * unweighted projections, read from whichever adjacency the graph holds
+     */
+    public PagedDoubleArray degrees(Direction direction) {
+        PagedDoubleArray degrees = new PagedDoubleArray(nodeCount);
+        Adjacency own = graph.adjacency(direction);
+        if (own != null) {
+            runRanges(pool, nodeCount, (start, end) -> {
+                AdjacencyCursor cursor = own.newCursor();
+                for (int node = start; node < end; node++) {
+                    double degree = 0;
+                    for (cursor.init(node); cursor.hasNext(); ) {
+                        cursor.nextTarget();
+                        degree += cursor.weight();
+                    }
+                    degrees.set(node, degree);
+                }
+            });
+        } else {
+            // every relationship of the opposite adjacency adds to the node it points to
+            AdjacencyCursor cursor = graph.adjacency(direction.reverse()).newCursor();
+            for (int node = 0; node < nodeCount; node++) {
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    degrees.addTo(cursor.nextTarget(), cursor.weight());
+                }
+            }
+        }
+        return degrees;
+    }
+}
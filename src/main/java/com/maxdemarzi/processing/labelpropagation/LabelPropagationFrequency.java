@@ -0,0 +1,157 @@
+package com.maxdemarzi.processing.labelpropagation;
+
+import com.maxdemarzi.processing.Iterative;
+import com.maxdemarzi.processing.WeightCounts;
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Label propagation for communities: every node takes the label most of its neighbours have, counting relationships
+    with their weight on weighted projections. Ties keep the current label if it is among them, otherwise the lowest
+    label wins. Nodes are updated in place in a random order, which is shuffled once per compute and split into ranges
+    for the workers, each of which counts labels in a scratch table of its own.
+    The residual is the fraction of nodes that changed their label in the last iteration.
+ */
+
+public class LabelPropagationFrequency implements LabelPropagation, Iterative {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private long seed = 42;
+    private Graph graph;
+    private PagedIntArray labels;
+    private int iterations;
+    private double residual;
+
+    public LabelPropagationFrequency(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    public LabelPropagationFrequency withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.BOTH), iterations, 0);
+    }
+
+    // both directions of the projection are loaded, relationships count for both of their nodes
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        int nodeCount = graph.nodeCount();
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+        Adjacency in = graph.adjacency(Direction.INCOMING);
+
+        labels = new PagedIntArray(nodeCount);
+        PagedIntArray order = new PagedIntArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                labels.set(node, node);
+                order.set(node, node);
+            }
+        });
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = nodeCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order.get(i);
+            order.set(i, order.get(j));
+            order.set(j, swap);
+        }
+
+        iterations = 0;
+        residual = nodeCount > 0 ? 1 : 0;
+        while (iterations < maxIterations && residual > 0 && residual >= tolerance) {
+            LongAdder changed = new LongAdder();
+            runRanges(pool, nodeCount, (start, end) -> {
+                WeightCounts counts = new WeightCounts();
+                AdjacencyCursor outCursor = out.newCursor();
+                AdjacencyCursor inCursor = in.newCursor();
+                int updated = 0;
+                for (int i = start; i < end; i++) {
+                    int node = order.get(i);
+                    int current = labels.get(node);
+                    counts.clear();
+                    count(counts, outCursor.init(node), node);
+                    count(counts, inCursor.init(node), node);
+                    int label = mostFrequent(counts, current);
+                    if (label != current) {
+                        labels.set(node, label);
+                        updated++;
+                    }
+                }
+                changed.add(updated);
+            });
+            iterations++;
+            residual = (double) changed.sum() / nodeCount;
+        }
+    }
+
+    // self relationships do not vote
+    private void count(WeightCounts counts, AdjacencyCursor cursor, int node) {
+        while (cursor.hasNext()) {
+            int target = cursor.nextTarget();
+            if (target != node) counts.add(labels.get(target), cursor.weight());
+        }
+    }
+
+    // the label with the highest weight, the current one on ties or if there are no labels at all
+    private static int mostFrequent(WeightCounts counts, int current) {
+        int best = current;
+        double bestWeight = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            int label = counts.keyAt(i);
+            double weight = counts.weightAt(i);
+            if (weight > bestWeight || (weight == bestWeight && best != current && label < best)
+                    || (weight == bestWeight && label == current)) {
+                best = label;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = labels != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(labels.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
@@ -1,17 +1,16 @@
 package com.maxdemarzi.processing.labelpropagation;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
 import org.neo4j.graphdb.*;
 
 public class LabelPropagationMapStorage implements LabelPropagation {
     private final GraphDatabaseService db;
-    private final long nodes;
+    private IdMap idMap;
     private Long2DoubleOpenHashMap labelMap;
 
     public LabelPropagationMapStorage(GraphDatabaseService db) {
         this.db = db;
-        this.nodes = new NodeCounter().getNodeCount(db);
     }
 
     @Override
@@ -21,6 +20,7 @@ public class LabelPropagationMapStorage implements LabelPropagation {
         boolean done = false;
         int iteration = 0;
         try ( Transaction tx = db.beginTx()) {
+            idMap = IdMap.load(db, label);
             ResourceIterator<Node> nodes = db.findNodes(DynamicLabel.label(label));
             while (nodes.hasNext()) {
                 Node node = nodes.next();
@@ -58,9 +58,14 @@ public class LabelPropagationMapStorage implements LabelPropagation {
         return labelMap != null ? labelMap.getOrDefault(node, -1D) : -1;
     }
 
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
+    }
+
     @Override
     public long numberOfNodes() {
-        return nodes;
-    };
+        return idMap != null ? idMap.nodeCount() : 0;
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.maxdemarzi.processing.labelpropagation;
+
+import com.maxdemarzi.processing.Iterative;
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+// the residual is the fraction of nodes that changed their label in the last iteration
+public class LabelPropagationProjection implements LabelPropagation, Iterative {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    private PagedIntArray labels;
+    private int iterations;
+    private double residual;
+
+    public LabelPropagationProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.BOTH), iterations);
+    }
+
+    public void compute(Projection projection, int iterations) {
+        compute(projection, iterations, 0);
+    }
+
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        int nodeCount = graph.nodeCount();
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+        Adjacency in = graph.adjacency(Direction.INCOMING);
+
+        labels = new PagedIntArray(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            labels.set(node, node);
+        }
+
+        iterations = 0;
+        residual = nodeCount > 0 ? 1 : 0;
+        while (iterations < maxIterations && residual > 0 && residual >= tolerance) {
+            LongAdder changed = new LongAdder();
+            // labels only ever decrease, so reading a neighbour mid-update is harmless
+            runRanges(pool, nodeCount, (start, end) -> {
+                int updated = 0;
+                AdjacencyCursor outCursor = out.newCursor();
+                AdjacencyCursor inCursor = in.newCursor();
+                for (int node = start; node < end; node++) {
+                    int min = labels.get(node);
+                    for (outCursor.init(node); outCursor.hasNext(); ) {
+                        min = Math.min(min, labels.get(outCursor.nextTarget()));
+                    }
+                    for (inCursor.init(node); inCursor.hasNext(); ) {
+                        min = Math.min(min, labels.get(inCursor.nextTarget()));
+                    }
+                    if (min < labels.get(node)) {
+                        labels.set(node, min);
+                        updated++;
+                    }
+                }
+                changed.add(updated);
+            });
+            iterations++;
+            residual = (double) changed.sum() / nodeCount;
+        }
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = labels != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(labels.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
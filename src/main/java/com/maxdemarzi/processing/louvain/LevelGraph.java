@@ -0,0 +1,223 @@
+package com.maxdemarzi.processing.louvain;
+
+import com.maxdemarzi.processing.WeightCounts;
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.neo4j.graphdb.Direction;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * The undirected, weighted graph of one Louvain level. Every relationship is a neighbour of both of its nodes, so the
+ * weighted degrees add up to twice the total weight. A self relationship is listed twice, once from each side, which
+ * is also how the weight inside a community shows up once the community is a node of the next level.
+ */
+abstract class LevelGraph {
+    private static final int CHUNK = 10_000;
+
+    private final int nodeCount;
+    private final PagedDoubleArray degrees;
+    private double totalWeight;
+
+    private LevelGraph(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.degrees = new PagedDoubleArray(nodeCount);
+    }
+
+    interface Cursor {
+        Cursor init(int node);
+
+        boolean hasNext();
+
+        int nextTarget();
+
+        double weight();
+    }
+
+    // the relationships of the projection in both directions
+    static LevelGraph of(ExecutorService pool, Graph graph) {
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+        Adjacency in = graph.adjacency(Direction.INCOMING);
+        LevelGraph level = new LevelGraph(graph.nodeCount()) {
+            @Override
+            Cursor newCursor() {
+                return new Cursor() {
+                    private final AdjacencyCursor outCursor = out.newCursor();
+                    private final AdjacencyCursor inCursor = in.newCursor();
+                    private AdjacencyCursor current;
+
+                    @Override
+                    public Cursor init(int node) {
+                        outCursor.init(node);
+                        inCursor.init(node);
+                        current = outCursor;
+                        return this;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        if (current.hasNext()) return true;
+                        current = inCursor;
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public int nextTarget() {
+                        return current.nextTarget();
+                    }
+
+                    @Override
+                    public double weight() {
+                        return current.weight();
+                    }
+                };
+            }
+        };
+        level.sumDegrees(pool);
+        return level;
+    }
+
+    /**
+     * One node for every community, relationships between the members of two communities are summed up into one
+     * relationship between them, and those within a community into a self relationship.
+     * @param communities the community of every node, from 0 to communityCount-1
+     */
+    LevelGraph aggregate(ExecutorService pool, PagedIntArray communities, int communityCount) {
+        PagedIntArray memberOffsets = new PagedIntArray(communityCount + 1);
+        for (int node = 0; node < nodeCount; node++) {
+            memberOffsets.addTo(communities.get(node) + 1, 1);
+        }
+        for (int community = 0; community < communityCount; community++) {
+            memberOffsets.addTo(community + 1, memberOffsets.get(community));
+        }
+        PagedIntArray members = new PagedIntArray(nodeCount);
+        PagedIntArray position = new PagedIntArray(communityCount);
+        position.copyFrom(memberOffsets);
+        for (int node = 0; node < nodeCount; node++) {
+            int community = communities.get(node);
+            members.set(position.get(community), node);
+            position.addTo(community, 1);
+        }
+
+        // every range of communities sums up its relationships on its own, they are copied into place afterwards
+        int chunkCount = (communityCount + CHUNK - 1) / CHUNK;
+        IntArrayList[] chunkTargets = new IntArrayList[chunkCount];
+        DoubleArrayList[] chunkWeights = new DoubleArrayList[chunkCount];
+        PagedLongArray offsets = new PagedLongArray(communityCount + 1);
+        runRanges(pool, communityCount, CHUNK, (start, end) -> {
+            Cursor cursor = newCursor();
+            WeightCounts counts = new WeightCounts();
+            IntArrayList targets = new IntArrayList();
+            DoubleArrayList weights = new DoubleArrayList();
+            for (int community = start; community < end; community++) {
+                counts.clear();
+                for (int i = memberOffsets.get(community); i < memberOffsets.get(community + 1); i++) {
+                    for (cursor.init(members.get(i)); cursor.hasNext(); ) {
+                        int target = cursor.nextTarget();
+                        counts.add(communities.get(target), cursor.weight());
+                    }
+                }
+                for (int i = 0; i < counts.size(); i++) {
+                    targets.add(counts.keyAt(i));
+                    weights.add(counts.weightAt(i));
+                }
+                offsets.set(community + 1, counts.size());
+            }
+            chunkTargets[start / CHUNK] = targets;
+            chunkWeights[start / CHUNK] = weights;
+        });
+        for (int community = 0; community < communityCount; community++) {
+            offsets.addTo(community + 1, offsets.get(community));
+        }
+
+        PagedIntArray targets = new PagedIntArray(offsets.get(communityCount));
+        PagedDoubleArray weights = new PagedDoubleArray(offsets.get(communityCount));
+        runRanges(pool, communityCount, CHUNK, (start, end) -> {
+            IntArrayList chunk = chunkTargets[start / CHUNK];
+            DoubleArrayList chunkWeight = chunkWeights[start / CHUNK];
+            long offset = offsets.get(start);
+            for (int i = 0; i < chunk.size(); i++) {
+                targets.set(offset + i, chunk.getInt(i));
+                weights.set(offset + i, chunkWeight.getDouble(i));
+            }
+        });
+
+        LevelGraph level = new LevelGraph(communityCount) {
+            @Override
+            Cursor newCursor() {
+                return new Cursor() {
+                    private long position;
+                    private long end;
+
+                    @Override
+                    public Cursor init(int node) {
+                        position = offsets.get(node) - 1;
+                        end = offsets.get(node + 1) - 1;
+                        return this;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < end;
+                    }
+
+                    @Override
+                    public int nextTarget() {
+                        return targets.get(++position);
+                    }
+
+                    @Override
+                    public double weight() {
+                        return weights.get(position);
+                    }
+                };
+            }
+        };
+        level.sumDegrees(pool);
+        return level;
+    }
+
+    private void sumDegrees(ExecutorService pool) {
+        DoubleAdder total = new DoubleAdder();
+        runRanges(pool, nodeCount, (start, end) -> {
+            Cursor cursor = newCursor();
+            double sum = 0;
+            for (int node = start; node < end; node++) {
+                double degree = 0;
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    cursor.nextTarget();
+                    degree += cursor.weight();
+                }
+                degrees.set(node, degree);
+                sum += degree;
+            }
+            total.add(sum);
+        });
+        totalWeight = total.sum();
+    }
+
+    // cursors are not thread safe, every thread creates its own
+    abstract Cursor newCursor();
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    double degree(int node) {
+        return degrees.get(node);
+    }
+
+    // the sum of all weighted degrees, twice the weight of all relationships
+    double totalWeight() {
+        return totalWeight;
+    }
+}
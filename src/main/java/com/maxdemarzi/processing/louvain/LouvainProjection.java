@@ -0,0 +1,310 @@
+package com.maxdemarzi.processing.louvain;
+
+import com.maxdemarzi.processing.Algorithm;
+import com.maxdemarzi.processing.WeightCounts;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedAtomicDoubleArray;
+import com.maxdemarzi.processing.paged.PagedAtomicIntegerArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Louvain communities, maximizing modularity one level at a time. Every node of a level moves to the community of a
+    neighbour that gains the most modularity, the ranges of nodes in parallel against shared community weights, until
+    a pass gains no more than the tolerance. The communities then become the nodes of the next level, until a level
+    merges no more communities or gains no more than the tolerance.
+    Two nodes that are alone in their communities only join the lower one, otherwise parallel moves could swap them
+    forever. Relationships count in both directions, communities are named after one of their nodes.
+ */
+
+public class LouvainProjection implements Algorithm {
+    public static final int DEFAULT_LEVELS = 10;
+    public static final double DEFAULT_TOLERANCE = 0.0001;
+
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    // the community of every node on each level, as the dense id of the node it is named after
+    private final List<PagedIntArray> levels = new ArrayList<>();
+    private final DoubleArrayList modularities = new DoubleArrayList();
+
+    public LouvainProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations, DEFAULT_LEVELS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param iterations the most passes over the nodes of a level
+     * @param maxLevels the most levels
+     */
+    public void compute(Projection projection, int iterations, int maxLevels, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        levels.clear();
+        modularities.clear();
+        int nodeCount = graph.nodeCount();
+        LevelGraph level = LevelGraph.of(pool, graph);
+        // the node of the current level every node of the projection is part of
+        PagedIntArray nodes = identity(nodeCount);
+        // the node of the projection every node of the current level is named after
+        PagedIntArray names = identity(nodeCount);
+
+        while (levels.size() < maxLevels) {
+            PagedIntArray communities = identity(level.nodeCount());
+            double before = modularity(level, communities, degrees(level));
+            double modularity = move(level, communities, iterations, tolerance);
+
+            // communities are renumbered from 0, keeping the name of the node they were named after
+            PagedIntArray renumbered = new PagedIntArray(level.nodeCount());
+            renumbered.fill(-1);
+            int communityCount = 0;
+            for (int node = 0; node < level.nodeCount(); node++) {
+                int community = communities.get(node);
+                if (renumbered.get(community) == -1) renumbered.set(community, communityCount++);
+            }
+            PagedIntArray levelNames = names;
+            PagedIntArray nextNames = new PagedIntArray(communityCount);
+            runRanges(pool, level.nodeCount(), (start, end) -> {
+                for (int node = start; node < end; node++) {
+                    int community = renumbered.get(node);
+                    if (community != -1) nextNames.set(community, levelNames.get(node));
+                    communities.set(node, renumbered.get(communities.get(node)));
+                }
+            });
+
+            boolean merged = communityCount < level.nodeCount();
+            if (merged || levels.isEmpty()) {
+                PagedIntArray result = new PagedIntArray(nodeCount);
+                runRanges(pool, nodeCount, (start, end) -> {
+                    for (int node = start; node < end; node++) {
+                        int community = communities.get(nodes.get(node));
+                        nodes.set(node, community);
+                        result.set(node, nextNames.get(community));
+                    }
+                });
+                levels.add(result);
+                modularities.add(modularity);
+            }
+            if (!merged || modularity - before <= tolerance) break;
+            level = level.aggregate(pool, communities, communityCount);
+            names = nextNames;
+        }
+    }
+
+    /**
+     * Moves nodes between the communities of one level until a pass over all of them gains no more than the tolerance.
+     * @return the modularity of the communities
+     */
+    private double move(LevelGraph level, PagedIntArray communities, int iterations, double tolerance) {
+        int nodeCount = level.nodeCount();
+        double totalWeight = level.totalWeight();
+        PagedAtomicDoubleArray totals = degrees(level);
+        PagedAtomicIntegerArray sizes = new PagedAtomicIntegerArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                sizes.set(node, 1);
+            }
+        });
+        double modularity = modularity(level, communities, totals);
+        if (totalWeight == 0) return modularity;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            LongAdder moves = new LongAdder();
+            runRanges(pool, nodeCount, (start, end) -> {
+                LevelGraph.Cursor cursor = level.newCursor();
+                WeightCounts counts = new WeightCounts();
+                int moved = 0;
+                for (int node = start; node < end; node++) {
+                    int own = communities.get(node);
+                    double degree = level.degree(node);
+                    counts.clear();
+                    for (cursor.init(node); cursor.hasNext(); ) {
+                        int target = cursor.nextTarget();
+                        if (target != node) counts.add(communities.get(target), cursor.weight());
+                    }
+
+                    // the gain of joining a community, relative to the others and scaled by the total weight
+                    int best = own;
+                    double bestGain = counts.get(own) - (totals.get(own) - degree) * degree / totalWeight;
+                    for (int i = 0; i < counts.size(); i++) {
+                        int community = counts.keyAt(i);
+                        if (community == own) continue;
+                        double gain = counts.weightAt(i) - totals.get(community) * degree / totalWeight;
+                        if (gain > bestGain || (gain == bestGain && best != own && community < best)) {
+                            best = community;
+                            bestGain = gain;
+                        }
+                    }
+                    if (best == own || (sizes.get(own) == 1 && sizes.get(best) == 1 && best > own)) continue;
+
+                    totals.addAndGet(own, -degree);
+                    totals.addAndGet(best, degree);
+                    sizes.addAndGet(own, -1);
+                    sizes.addAndGet(best, 1);
+                    communities.set(node, best);
+                    moved++;
+                }
+                moves.add(moved);
+            });
+            if (moves.sum() == 0) break;
+            double next = modularity(level, communities, totals);
+            boolean converged = next - modularity <= tolerance;
+            modularity = next;
+            if (converged) break;
+        }
+        return modularity;
+    }
+
+    // the sum of the weighted degrees of the nodes in each community, every node starts out alone
+    private PagedAtomicDoubleArray degrees(LevelGraph level) {
+        PagedAtomicDoubleArray totals = new PagedAtomicDoubleArray(level.nodeCount());
+        runRanges(pool, level.nodeCount(), (start, end) -> {
+            for (int node = start; node < end; node++) {
+                totals.set(node, level.degree(node));
+            }
+        });
+        return totals;
+    }
+
+    // the weight within communities less the weight expected if relationships were placed at random
+    private double modularity(LevelGraph level, PagedIntArray communities, PagedAtomicDoubleArray totals) {
+        double totalWeight = level.totalWeight();
+        if (totalWeight == 0) return 0;
+        DoubleAdder internal = new DoubleAdder();
+        DoubleAdder expected = new DoubleAdder();
+        runRanges(pool, level.nodeCount(), (start, end) -> {
+            LevelGraph.Cursor cursor = level.newCursor();
+            double inside = 0;
+            double squares = 0;
+            for (int node = start; node < end; node++) {
+                int community = communities.get(node);
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    int target = cursor.nextTarget();
+                    if (communities.get(target) == community) inside += cursor.weight();
+                }
+                double total = totals.get(node);
+                squares += total * total;
+            }
+            internal.add(inside);
+            expected.add(squares);
+        });
+        return internal.sum() / totalWeight - expected.sum() / (totalWeight * totalWeight);
+    }
+
+    private PagedIntArray identity(int nodeCount) {
+        PagedIntArray identity = new PagedIntArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                identity.set(node, node);
+            }
+        });
+        return identity;
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    // the modularity of the communities of each level
+    public double[] getModularities() {
+        return modularities.toDoubleArray();
+    }
+
+    /**
+     * The communities of one level, written to a property of their own, louvain_1 for the first level. Every
+     * community is the Neo4j id of the node it is named after, like the communities of the last level.
+     */
+    public Algorithm level(int level) {
+        return new Level(level);
+    }
+
+    @Override
+    public double getResult(long node) {
+        return levels.isEmpty() ? -1 : level(levels.size() - 1).getResult(node);
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(levels.get(levels.size() - 1).get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return levels.isEmpty() ? 0 : graph.nodeCount();
+    }
+
+    @Override
+    public String getPropertyName() {
+        return "louvain";
+    }
+
+    @Override
+    public boolean isWritten(double value) {
+        return value >= 0;
+    }
+
+    private class Level implements Algorithm {
+        private final int level;
+
+        private Level(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public void compute(String label, String type, int iterations) {
+            LouvainProjection.this.compute(label, type, iterations);
+        }
+
+        @Override
+        public double getResult(long node) {
+            int index = graph.toMappedNodeId(node);
+            return index != -1 ? getResultAt(index) : -1;
+        }
+
+        @Override
+        public double getResultAt(long node) {
+            return graph.toOriginalNodeId(levels.get(level).get(node));
+        }
+
+        @Override
+        public long toOriginalNodeId(long node) {
+            return LouvainProjection.this.toOriginalNodeId(node);
+        }
+
+        @Override
+        public long numberOfNodes() {
+            return LouvainProjection.this.numberOfNodes();
+        }
+
+        @Override
+        public String getPropertyName() {
+            return "louvain_" + (level + 1);
+        }
+
+        @Override
+        public boolean isWritten(double value) {
+            return value >= 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.maxdemarzi.processing.paged;
+
+/**
+ * Base of the long indexed primitive arrays. Elements live in fixed size pages, so no single allocation
+ * gets large enough to be a humongous object for the G1 collector, and sizes are not limited to 2^31.
+ */
+public abstract class PagedArray {
+    public static final int PAGE_SHIFT = 15;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final long PAGE_MASK = PAGE_SIZE - 1;
+
+    protected final long size;
+
+    protected PagedArray(long size) {
+        this.size = size;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public abstract long memoryUsage();
+
+    protected static int numberOfPages(long size) {
+        long pages = (size + PAGE_MASK) >>> PAGE_SHIFT;
+        if (pages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Array of " + size + " elements is too large");
+        }
+        return (int) pages;
+    }
+
+    protected static int pageSize(int page, int numberOfPages, long size) {
+        return page == numberOfPages - 1 ? (int) (size - ((long) page << PAGE_SHIFT)) : PAGE_SIZE;
+    }
+
+    protected static int pageIndex(long index) {
+        return (int) (index >>> PAGE_SHIFT);
+    }
+
+    protected static int indexInPage(long index) {
+        return (int) (index & PAGE_MASK);
+    }
+}
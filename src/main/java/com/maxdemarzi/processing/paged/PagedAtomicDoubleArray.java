@@ -0,0 +1,48 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Doubles stored as their raw long bits, additions retry a compare and set.
+ */
+public class PagedAtomicDoubleArray extends PagedArray {
+    private final AtomicLongArray[] pages;
+
+    public PagedAtomicDoubleArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new AtomicLongArray[numberOfPages];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new AtomicLongArray(pageSize(page, numberOfPages, size));
+        }
+    }
+
+    public double get(long index) {
+        return Double.longBitsToDouble(pages[pageIndex(index)].get(indexInPage(index)));
+    }
+
+    public void set(long index, double value) {
+        pages[pageIndex(index)].set(indexInPage(index), Double.doubleToRawLongBits(value));
+    }
+
+    public double getAndSet(long index, double value) {
+        return Double.longBitsToDouble(pages[pageIndex(index)].getAndSet(indexInPage(index), Double.doubleToRawLongBits(value)));
+    }
+
+    public double addAndGet(long index, double delta) {
+        AtomicLongArray page = pages[pageIndex(index)];
+        int i = indexInPage(index);
+        while (true) {
+            long current = page.get(i);
+            double next = Double.longBitsToDouble(current) + delta;
+            if (page.compareAndSet(i, current, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * size;
+    }
+}
@@ -0,0 +1,41 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class PagedAtomicIntegerArray extends PagedArray {
+    private final AtomicIntegerArray[] pages;
+
+    public PagedAtomicIntegerArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new AtomicIntegerArray[numberOfPages];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new AtomicIntegerArray(pageSize(page, numberOfPages, size));
+        }
+    }
+
+    public int get(long index) {
+        return pages[pageIndex(index)].get(indexInPage(index));
+    }
+
+    public void set(long index, int value) {
+        pages[pageIndex(index)].set(indexInPage(index), value);
+    }
+
+    public int getAndSet(long index, int value) {
+        return pages[pageIndex(index)].getAndSet(indexInPage(index), value);
+    }
+
+    public int addAndGet(long index, int delta) {
+        return pages[pageIndex(index)].addAndGet(indexInPage(index), delta);
+    }
+
+    public boolean compareAndSet(long index, int expect, int update) {
+        return pages[pageIndex(index)].compareAndSet(indexInPage(index), expect, update);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 4L * size;
+    }
+}
@@ -0,0 +1,41 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class PagedAtomicLongArray extends PagedArray {
+    private final AtomicLongArray[] pages;
+
+    public PagedAtomicLongArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new AtomicLongArray[numberOfPages];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new AtomicLongArray(pageSize(page, numberOfPages, size));
+        }
+    }
+
+    public long get(long index) {
+        return pages[pageIndex(index)].get(indexInPage(index));
+    }
+
+    public void set(long index, long value) {
+        pages[pageIndex(index)].set(indexInPage(index), value);
+    }
+
+    public long getAndSet(long index, long value) {
+        return pages[pageIndex(index)].getAndSet(indexInPage(index), value);
+    }
+
+    public long addAndGet(long index, long delta) {
+        return pages[pageIndex(index)].addAndGet(indexInPage(index), delta);
+    }
+
+    public boolean compareAndSet(long index, long expect, long update) {
+        return pages[pageIndex(index)].compareAndSet(indexInPage(index), expect, update);
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * size;
+    }
+}
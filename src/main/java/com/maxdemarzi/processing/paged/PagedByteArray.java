@@ -0,0 +1,59 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.Arrays;
+
+public class PagedByteArray extends PagedArray {
+    private final byte[][] pages;
+
+    public PagedByteArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new byte[numberOfPages][];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new byte[pageSize(page, numberOfPages, size)];
+        }
+    }
+
+    public byte get(long index) {
+        return pages[pageIndex(index)][indexInPage(index)];
+    }
+
+    public void set(long index, byte value) {
+        pages[pageIndex(index)][indexInPage(index)] = value;
+    }
+
+    public void addTo(long index, byte delta) {
+        pages[pageIndex(index)][indexInPage(index)] += delta;
+    }
+
+    public void fill(byte value) {
+        for (byte[] page : pages) {
+            Arrays.fill(page, value);
+        }
+    }
+
+    public void copyFrom(PagedByteArray other) {
+        for (int page = 0; page < pages.length; page++) {
+            System.arraycopy(other.pages[page], 0, pages[page], 0, pages[page].length);
+        }
+    }
+
+    /**
+     * Copies length values of source to the positions starting at index, which may span pages.
+     */
+    public void copyFrom(long index, byte[] source, int length) {
+        int copied = 0;
+        while (copied < length) {
+            byte[] page = pages[pageIndex(index + copied)];
+            int offset = indexInPage(index + copied);
+            int count = Math.min(length - copied, page.length - offset);
+            System.arraycopy(source, copied, page, offset, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return size;
+    }
+}
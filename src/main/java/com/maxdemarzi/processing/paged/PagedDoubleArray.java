@@ -0,0 +1,45 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.Arrays;
+
+public class PagedDoubleArray extends PagedArray {
+    private final double[][] pages;
+
+    public PagedDoubleArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new double[numberOfPages][];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new double[pageSize(page, numberOfPages, size)];
+        }
+    }
+
+    public double get(long index) {
+        return pages[pageIndex(index)][indexInPage(index)];
+    }
+
+    public void set(long index, double value) {
+        pages[pageIndex(index)][indexInPage(index)] = value;
+    }
+
+    public void addTo(long index, double delta) {
+        pages[pageIndex(index)][indexInPage(index)] += delta;
+    }
+
+    public void fill(double value) {
+        for (double[] page : pages) {
+            Arrays.fill(page, value);
+        }
+    }
+
+    public void copyFrom(PagedDoubleArray other) {
+        for (int page = 0; page < pages.length; page++) {
+            System.arraycopy(other.pages[page], 0, pages[page], 0, pages[page].length);
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * size;
+    }
+}
@@ -0,0 +1,59 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.Arrays;
+
+public class PagedFloatArray extends PagedArray {
+    private final float[][] pages;
+
+    public PagedFloatArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new float[numberOfPages][];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new float[pageSize(page, numberOfPages, size)];
+        }
+    }
+
+    public float get(long index) {
+        return pages[pageIndex(index)][indexInPage(index)];
+    }
+
+    public void set(long index, float value) {
+        pages[pageIndex(index)][indexInPage(index)] = value;
+    }
+
+    public void addTo(long index, float delta) {
+        pages[pageIndex(index)][indexInPage(index)] += delta;
+    }
+
+    public void fill(float value) {
+        for (float[] page : pages) {
+            Arrays.fill(page, value);
+        }
+    }
+
+    public void copyFrom(PagedFloatArray other) {
+        for (int page = 0; page < pages.length; page++) {
+            System.arraycopy(other.pages[page], 0, pages[page], 0, pages[page].length);
+        }
+    }
+
+    /**
+     * Copies length values of source to the positions starting at index, which may span pages.
+     */
+    public void copyFrom(long index, float[] source, int length) {
+        int copied = 0;
+        while (copied < length) {
+            float[] page = pages[pageIndex(index + copied)];
+            int offset = indexInPage(index + copied);
+            int count = Math.min(length - copied, page.length - offset);
+            System.arraycopy(source, copied, page, offset, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 4L * size;
+    }
+}
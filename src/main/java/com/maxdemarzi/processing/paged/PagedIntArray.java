@@ -0,0 +1,59 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.Arrays;
+
+public class PagedIntArray extends PagedArray {
+    private final int[][] pages;
+
+    public PagedIntArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new int[numberOfPages][];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new int[pageSize(page, numberOfPages, size)];
+        }
+    }
+
+    public int get(long index) {
+        return pages[pageIndex(index)][indexInPage(index)];
+    }
+
+    public void set(long index, int value) {
+        pages[pageIndex(index)][indexInPage(index)] = value;
+    }
+
+    public void addTo(long index, int delta) {
+        pages[pageIndex(index)][indexInPage(index)] += delta;
+    }
+
+    public void fill(int value) {
+        for (int[] page : pages) {
+            Arrays.fill(page, value);
+        }
+    }
+
+    public void copyFrom(PagedIntArray other) {
+        for (int page = 0; page < pages.length; page++) {
+            System.arraycopy(other.pages[page], 0, pages[page], 0, pages[page].length);
+        }
+    }
+
+    /**
+     * Copies length values of source to the positions starting at index, which may span pages.
+     */
+    public void copyFrom(long index, int[] source, int length) {
+        int copied = 0;
+        while (copied < length) {
+            int[] page = pages[pageIndex(index + copied)];
+            int offset = indexInPage(index + copied);
+            int count = Math.min(length - copied, page.length - offset);
+            System.arraycopy(source, copied, page, offset, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 4L * size;
+    }
+}
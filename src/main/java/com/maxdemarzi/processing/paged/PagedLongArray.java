@@ -0,0 +1,82 @@
+package com.maxdemarzi.processing.paged;
+
+import java.util.Arrays;
+
+public class PagedLongArray extends PagedArray {
+    private final long[][] pages;
+
+    public PagedLongArray(long size) {
+        super(size);
+        int numberOfPages = numberOfPages(size);
+        pages = new long[numberOfPages][];
+        for (int page = 0; page < numberOfPages; page++) {
+            pages[page] = new long[pageSize(page, numberOfPages, size)];
+        }
+    }
+
+    private PagedLongArray(long size, long[][] pages) {
+        super(size);
+        this.pages = pages;
+    }
+
+    public long get(long index) {
+        return pages[pageIndex(index)][indexInPage(index)];
+    }
+
+    public void set(long index, long value) {
+        pages[pageIndex(index)][indexInPage(index)] = value;
+    }
+
+    public void addTo(long index, long delta) {
+        pages[pageIndex(index)][indexInPage(index)] += delta;
+    }
+
+    public void fill(long value) {
+        for (long[] page : pages) {
+            Arrays.fill(page, value);
+        }
+    }
+
+    public void copyFrom(PagedLongArray other) {
+        for (int page = 0; page < pages.length; page++) {
+            System.arraycopy(other.pages[page], 0, pages[page], 0, pages[page].length);
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * size;
+    }
+
+    /**
+     * Appends values of unknown count page by page, without copying them when the array is built.
+     */
+    public static class Builder {
+        private long[][] pages = new long[16][];
+        private long size;
+
+        public void add(long value) {
+            int page = pageIndex(size);
+            if (page == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            if (pages[page] == null) {
+                pages[page] = new long[PAGE_SIZE];
+            }
+            pages[page][indexInPage(size++)] = value;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public PagedLongArray build() {
+            int numberOfPages = numberOfPages(size);
+            long[][] result = Arrays.copyOf(pages, numberOfPages);
+            if (numberOfPages > 0) {
+                result[numberOfPages - 1] = Arrays.copyOf(result[numberOfPages - 1], pageSize(numberOfPages - 1, numberOfPages, size));
+            }
+            return new PagedLongArray(size, result);
+        }
+    }
+}
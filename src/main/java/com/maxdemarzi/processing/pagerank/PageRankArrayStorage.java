@@ -1,6 +1,6 @@
 package com.maxdemarzi.processing.pagerank;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import org.neo4j.graphdb.*;
 
 import java.util.Arrays;
@@ -11,24 +11,24 @@ import java.util.Arrays;
  */
 public class PageRankArrayStorage implements PageRank {
     private final GraphDatabaseService db;
-    private final int nodes;
+    private IdMap idMap;
     private float[] dst;
 
     public PageRankArrayStorage(GraphDatabaseService db) {
         this.db = db;
-        this.nodes = new NodeCounter().getNodeCount(db);
     }
 
     @Override
     public void compute(String label, String type, int iterations) {
 
-        float[] src = new float[nodes];
-        dst = new float[nodes];
-
         RelationshipType relationshipType = DynamicRelationshipType.withName(type);
 
         try ( Transaction tx = db.beginTx()) {
-            int[] degrees = computeDegrees(label, relationshipType);
+            idMap = IdMap.load(db, label);
+            int nodes = idMap.nodeCount();
+            float[] src = new float[nodes];
+            dst = new float[nodes];
+            int[] degrees = computeDegrees(relationshipType);
 
             for (int iteration = 0; iteration < iterations; iteration++) {
 
@@ -36,8 +36,9 @@ public class PageRankArrayStorage implements PageRank {
 
                 for( Relationship relationship : db.getAllRelationships()) {
                     if (relationship.isType(relationshipType)) {
-                        int x = (int) relationship.getStartNode().getId();
-                        int y = (int) relationship.getEndNode().getId();
+                        int x = idMap.toMappedNodeId(relationship.getStartNode().getId());
+                        int y = idMap.toMappedNodeId(relationship.getEndNode().getId());
+                        if (x == -1 || y == -1) continue;
                         dst[y] += src[x];
                     }
                 }
@@ -47,32 +48,39 @@ public class PageRankArrayStorage implements PageRank {
     }
 
     private void startIteration(float[] srcMap, float[] dstMap, int[] degreeMap) {
-        for (int node = 0; node < this.nodes; node++) {
-            if (degreeMap[node] == -1) continue;
+        for (int node = 0; node < srcMap.length; node++) {
             srcMap[node]= (float) (ALPHA * dstMap[node] / degreeMap[node]);
         }
         Arrays.fill(dstMap, (float) ONE_MINUS_ALPHA);
     }
 
-    private int[] computeDegrees(String label, RelationshipType relationshipType) {
-        int[] degreeMap = new int[nodes];
-        Arrays.fill(degreeMap,-1);
-        ResourceIterator<Node> nodes = db.findNodes(DynamicLabel.label(label));
-        while (nodes.hasNext()) {
-            Node node = nodes.next();
-            degreeMap[((int) node.getId())]=node.getDegree(relationshipType, Direction.OUTGOING);
+    private int[] computeDegrees(RelationshipType relationshipType) {
+        int[] degreeMap = new int[idMap.nodeCount()];
+        for (int node = 0; node < degreeMap.length; node++) {
+            degreeMap[node] = db.getNodeById(idMap.toOriginalNodeId(node)).getDegree(relationshipType, Direction.OUTGOING);
         }
         return degreeMap;
     }
 
     @Override
     public double getResult(long node) {
-        return dst != null ? dst[((int) node)] : 0;
+        int index = dst != null ? idMap.toMappedNodeId(node) : -1;
+        return index != -1 ? dst[index] : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return dst[(int) node];
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
     }
 
     @Override
     public long numberOfNodes() {
-        return nodes;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.maxdemarzi.processing.pagerank;
 
 import com.maxdemarzi.processing.NodeCounter;
 import com.maxdemarzi.processing.OpsRunner;
+import com.maxdemarzi.processing.graph.IdMap;
+import com.maxdemarzi.processing.paged.PagedAtomicIntegerArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -12,9 +15,7 @@ import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 
-import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static com.maxdemarzi.processing.Utils.*;
 
@@ -25,24 +26,20 @@ import static com.maxdemarzi.processing.Utils.*;
 public class PageRankArrayStorageParallelSPI implements PageRank {
     public static final int ONE_MINUS_ALPHA_INT = toInt(ONE_MINUS_ALPHA);
     private final GraphDatabaseAPI db;
-    private final int nodeCount;
     private final ExecutorService pool;
-    private final int relCount;
-    private AtomicIntegerArray dst;
+    private final long relCount;
+    private IdMap idMap;
+    private PagedAtomicIntegerArray dst;
 
     public PageRankArrayStorageParallelSPI(GraphDatabaseService db, ExecutorService pool) {
         this.pool = pool;
         this.db = (GraphDatabaseAPI) db;
-        this.nodeCount = new NodeCounter().getNodeCount(db);
         this.relCount = new NodeCounter().getRelationshipCount(db);
     }
 
     @Override
     public void compute(String label, String type, int iterations) {
 
-        int[] src = new int[nodeCount];
-        dst = new AtomicIntegerArray(nodeCount);
-
         try ( Transaction tx = db.beginTx()) {
 
             ThreadToStatementContextBridge ctx = this.db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
@@ -50,12 +47,19 @@ public class PageRankArrayStorageParallelSPI implements PageRank {
             int labelId = ops.labelGetForName(label);
             int typeId = ops.relationshipTypeGetForName(type);
 
-            int[] degrees = computeDegrees(ops,labelId, typeId);
+            idMap = IdMap.load(ops, labelId);
+            PagedIntArray src = new PagedIntArray(idMap.nodeCount());
+            dst = new PagedAtomicIntegerArray(idMap.nodeCount());
+            PagedIntArray degrees = computeDegrees(ops, typeId);
 
             RelationshipVisitor<RuntimeException> visitor = new RelationshipVisitor<RuntimeException>() {
                 public void visit(long relId, int relTypeId, long startNode, long endNode) throws RuntimeException {
                     if (relTypeId == typeId) {
-                        dst.addAndGet(((int) endNode),src[(int) startNode]);
+                        int x = idMap.toMappedNodeId(startNode);
+                        int y = idMap.toMappedNodeId(endNode);
+                        if (x != -1 && y != -1) {
+                            dst.addAndGet(y, src.get(x));
+                        }
                     }
                 }
             };
@@ -65,7 +69,7 @@ public class PageRankArrayStorageParallelSPI implements PageRank {
 
                 PrimitiveLongIterator rels = ops.relationshipsGetAll();
                 runOperations(pool, rels, relCount , ops, new OpsRunner() {
-                    public void run(int id) throws EntityNotFoundException {
+                    public void run(long id) throws EntityNotFoundException {
                         ops.relationshipVisit(id, visitor);
                     }
                 });
@@ -76,22 +80,22 @@ public class PageRankArrayStorageParallelSPI implements PageRank {
         }
     }
 
-    private void startIteration(int[] src, AtomicIntegerArray dst, int[] degrees) {
-        for (int node = 0; node < this.nodeCount; node++) {
-            if (degrees[node] == -1) continue;
-            src[node]= toInt(ALPHA * toFloat(dst.getAndSet(node, ONE_MINUS_ALPHA_INT)) / degrees[node]);
+    private void startIteration(PagedIntArray src, PagedAtomicIntegerArray dst, PagedIntArray degrees) {
+        for (long node = 0; node < src.size(); node++) {
+            src.set(node, toInt(ALPHA * toFloat(dst.getAndSet(node, ONE_MINUS_ALPHA_INT)) / degrees.get(node)));
 
         }
     }
 
-    private int[] computeDegrees(ReadOperations ops, int labelId, int relationshipId) throws EntityNotFoundException {
-        int[] degree = new int[nodeCount];
-        Arrays.fill(degree,-1);
-        PrimitiveLongIterator it = ops.nodesGetForLabel(labelId);
-        int totalCount = nodeCount;
-        runOperations(pool, it, totalCount, ops, new OpsRunner() {
-            public void run(int id) throws EntityNotFoundException {
-                degree[id] = ops.nodeGetDegree(id, Direction.OUTGOING, relationshipId);
+    private PagedIntArray computeDegrees(ReadOperations ops, int relationshipId) throws EntityNotFoundException {
+        PagedIntArray degree = new PagedIntArray(idMap.nodeCount());
+        runRanges(pool, idMap.nodeCount(), (start, end) -> {
+            for (int node = start; node < end; node++) {
+                try {
+                    degree.set(node, ops.nodeGetDegree(idMap.toOriginalNodeId(node), Direction.OUTGOING, relationshipId));
+                } catch (EntityNotFoundException e) {
+                    e.printStackTrace();
+                }
             }
         });
         return degree;
@@ -99,12 +103,23 @@ public class PageRankArrayStorageParallelSPI implements PageRank {
 
     @Override
     public double getResult(long node) {
-        return dst != null ? toFloat(dst.get((int) node)) : 0;
+        int index = dst != null ? idMap.toMappedNodeId(node) : -1;
+        return index != -1 ? toFloat(dst.get(index)) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return toFloat(dst.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
     }
 
     @Override
     public long numberOfNodes() {
-        return nodeCount;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 
 
@@ -1,6 +1,6 @@
 package com.maxdemarzi.processing.pagerank;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -19,20 +19,16 @@ import java.util.Arrays;
  */
 public class PageRankArrayStorageSPI implements PageRank {
     private final GraphDatabaseAPI db;
-    private final int nodes;
+    private IdMap idMap;
     private float[] dst;
 
     public PageRankArrayStorageSPI(GraphDatabaseService db) {
         this.db = (GraphDatabaseAPI) db;
-        this.nodes = new NodeCounter().getNodeCount(db);
     }
 
     @Override
     public void compute(String label, String type, int iterations) {
 
-        float[] src = new float[nodes];
-        dst = new float[nodes];
-
         try ( Transaction tx = db.beginTx()) {
 
             ThreadToStatementContextBridge ctx = this.db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
@@ -40,12 +36,19 @@ public class PageRankArrayStorageSPI implements PageRank {
             int labelId = ops.labelGetForName(label);
             int typeId = ops.relationshipTypeGetForName(type);
 
-            int[] degrees = computeDegrees(ops,labelId, typeId);
+            idMap = IdMap.load(ops, labelId);
+            float[] src = new float[idMap.nodeCount()];
+            dst = new float[idMap.nodeCount()];
+            int[] degrees = computeDegrees(ops, typeId);
 
             RelationshipVisitor<RuntimeException> visitor = new RelationshipVisitor<RuntimeException>() {
                 public void visit(long relId, int relTypeId, long startNode, long endNode) throws RuntimeException {
                     if (relTypeId == typeId) {
-                        dst[((int) endNode)] += src[(int) startNode];
+                        int x = idMap.toMappedNodeId(startNode);
+                        int y = idMap.toMappedNodeId(endNode);
+                        if (x != -1 && y != -1) {
+                            dst[y] += src[x];
+                        }
                     }
                 }
             };
@@ -65,31 +68,38 @@ public class PageRankArrayStorageSPI implements PageRank {
     }
 
     private void startIteration(float[] src, float[] dst, int[] degrees) {
-        for (int node = 0; node < this.nodes; node++) {
-            if (degrees[node] == -1) continue;
+        for (int node = 0; node < src.length; node++) {
             src[node]= (float) (ALPHA * dst[node] / degrees[node]);
         }
         Arrays.fill(dst, (float) ONE_MINUS_ALPHA);
     }
 
-    private int[] computeDegrees(ReadOperations ops, int labelId, int relationshipId) throws EntityNotFoundException {
-        int[] degrees = new int[nodes];
-        Arrays.fill(degrees,-1);
-        PrimitiveLongIterator nodes = ops.nodesGetForLabel(labelId);
-        while (nodes.hasNext()) {
-            long node = nodes.next();
-            degrees[((int)node)]= ops.nodeGetDegree(node, Direction.OUTGOING, relationshipId);
+    private int[] computeDegrees(ReadOperations ops, int relationshipId) throws EntityNotFoundException {
+        int[] degrees = new int[idMap.nodeCount()];
+        for (int node = 0; node < degrees.length; node++) {
+            degrees[node]= ops.nodeGetDegree(idMap.toOriginalNodeId(node), Direction.OUTGOING, relationshipId);
         }
         return degrees;
     }
 
     @Override
     public double getResult(long node) {
-        return dst != null ? dst[((int) node)] : -1;
+        int index = dst != null ? idMap.toMappedNodeId(node) : -1;
+        return index != -1 ? dst[index] : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return dst[(int) node];
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
     }
 
     @Override
     public long numberOfNodes() {
-        return nodes;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 }
@@ -0,0 +1,105 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedAtomicDoubleArray;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * PageRank that pushes changes instead of whole ranks. Every node starts with a pending delta of 1 - alpha,
+ * an iteration only expands the frontier of nodes whose delta is larger than the tolerance: they add it to their
+ * rank and push alpha times its share along their outgoing relationships. Smaller deltas wait until enough has
+ * piled up, so later iterations only touch the relationships of the few nodes that still change.
+ * The residual is the largest delta left behind, which is added to the ranks once the iterations stop.
+ */
+public class PageRankDelta extends PageRankProjection {
+
+    public PageRankDelta(GraphDatabaseService db, ExecutorService pool) {
+        super(db, pool);
+    }
+
+    public PageRankDelta(GraphDatabaseService db, ExecutorService pool, Precision precision) {
+        super(db, pool, precision);
+    }
+
+    // only the outgoing relationships of the projection are loaded
+    @Override
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.OUTGOING));
+        int nodeCount = graph.nodeCount();
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+
+        dst = precision.newRanks(nodeCount);
+        PagedDoubleArray degrees = new SparseMatrixVector(pool, graph, kernel()).degrees(Direction.OUTGOING);
+        PagedAtomicDoubleArray deltas = new PagedAtomicDoubleArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                deltas.set(node, ONE_MINUS_ALPHA);
+            }
+        });
+        PagedIntArray frontier = new PagedIntArray(nodeCount);
+
+        iterations = 0;
+        int active = frontier(deltas, tolerance, frontier, nodeCount);
+        while (iterations < maxIterations && active > 0) {
+            runRanges(pool, active, (start, end) -> {
+                AdjacencyCursor cursor = out.newCursor();
+                for (int index = start; index < end; index++) {
+                    int node = frontier.get(index);
+                    // other workers may push to the node meanwhile, what they add stays pending
+                    double delta = deltas.getAndSet(node, 0);
+                    dst.set(node, dst.get(node) + delta);
+                    double degree = degrees.get(node);
+                    if (degree <= 0) continue;
+                    double share = ALPHA * delta / degree;
+                    for (cursor.init(node); cursor.hasNext(); ) {
+                        int target = cursor.nextTarget();
+                        deltas.addAndGet(target, share * cursor.weight());
+                    }
+                }
+            });
+            iterations++;
+            active = frontier(deltas, tolerance, frontier, nodeCount);
+        }
+
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                dst.set(node, dst.get(node) + deltas.get(node));
+            }
+        });
+    }
+
+    // collects the nodes with a delta above the tolerance and returns how many there are, sets the residual
+    private int frontier(PagedAtomicDoubleArray deltas, double tolerance, PagedIntArray frontier, int nodeCount) {
+        AtomicInteger size = new AtomicInteger();
+        DoubleAccumulator largest = new DoubleAccumulator(Math::max, 0);
+        runRanges(pool, nodeCount, (start, end) -> {
+            IntArrayList active = new IntArrayList();
+            double max = 0;
+            for (int node = start; node < end; node++) {
+                double delta = deltas.get(node);
+                max = Math.max(max, Math.abs(delta));
+                if (Math.abs(delta) > tolerance) {
+                    active.add(node);
+                }
+            }
+            largest.accumulate(max);
+            frontier.copyFrom(size.getAndAdd(active.size()), active.elements(), active.size());
+        });
+        residual = largest.get();
+        return size.get();
+    }
+}
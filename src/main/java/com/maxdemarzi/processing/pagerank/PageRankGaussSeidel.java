@@ -0,0 +1,80 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * PageRank that updates its ranks in place. Workers pull from the reverse adjacency like {@link PageRankProjection},
+ * but read and write a single array of ranks, so a node already sees the ranks its neighbours got earlier in the
+ * same sweep. There is no copy between iterations and half the rank state, and the ranks usually settle within
+ * the tolerance in fewer sweeps. Neighbours in other ranges are read as they are at that moment,
+ * which makes the ranks of a sweep depend on scheduling but not the ranks they converge to.
+ */
+public class PageRankGaussSeidel extends PageRankProjection {
+
+    public PageRankGaussSeidel(GraphDatabaseService db, ExecutorService pool) {
+        super(db, pool);
+    }
+
+    public PageRankGaussSeidel(GraphDatabaseService db, ExecutorService pool, Precision precision) {
+        super(db, pool, precision);
+    }
+
+    // only the incoming relationships of the projection are loaded
+    @Override
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.INCOMING));
+        int nodeCount = graph.nodeCount();
+        Adjacency in = graph.adjacency(Direction.INCOMING);
+
+        dst = precision.newRanks(nodeCount);
+        boolean weighted = in.hasWeights();
+        PagedDoubleArray shares = shares(new SparseMatrixVector(pool, graph, kernel()).degrees(Direction.OUTGOING), nodeCount);
+
+        iterations = 0;
+        residual = 0;
+        while (iterations < maxIterations) {
+            DoubleAccumulator change = new DoubleAccumulator(Math::max, 0);
+            runRanges(pool, nodeCount, (start, end) -> {
+                AdjacencyCursor cursor = in.newCursor();
+                double max = 0;
+                for (int node = start; node < end; node++) {
+                    double sum = ONE_MINUS_ALPHA;
+                    for (cursor.init(node); cursor.hasNext(); ) {
+                        int source = cursor.nextTarget();
+                        double rank = dst.get(source) * shares.get(source);
+                        sum += weighted ? rank * cursor.weight() : rank;
+                    }
+                    max = Math.max(max, Math.abs(sum - dst.get(node)));
+                    dst.set(node, sum);
+                }
+                change.accumulate(max);
+            });
+            iterations++;
+            residual = change.get();
+            if (residual < tolerance) break;
+        }
+    }
+
+    // alpha divided by the degree, the part of its rank a node passes on per unit of weight
+    private PagedDoubleArray shares(PagedDoubleArray degrees, int nodeCount) {
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                double degree = degrees.get(node);
+                degrees.set(node, degree <= 0 ? 0 : ALPHA / degree);
+            }
+        });
+        return degrees;
+    }
+}
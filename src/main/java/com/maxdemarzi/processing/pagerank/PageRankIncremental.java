@@ -0,0 +1,286 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.ChangeTracker;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.Resident;
+import com.maxdemarzi.processing.paged.PagedAtomicDoubleArray;
+import com.maxdemarzi.processing.paged.PagedAtomicIntegerArray;
+import com.maxdemarzi.processing.paged.PagedByteArray;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * PageRank that stays resident between requests and follows the changes of its projection. The first compute,
+ * or one after changes a {@link ChangeTracker} could not describe, pulls the ranks like {@link PageRankProjection}.
+ * Later ones take the previous ranks as the starting point: only the nodes at the ends of created or deleted
+ * relationships, their outgoing neighbours and new nodes get their pending delta recomputed, which is then pushed
+ * like {@link PageRankDelta} from a frontier that only holds the nodes whose delta exceeds the tolerance.
+ * Deltas below the tolerance stay pending for the next compute. Only nodes whose rank moved by more than the
+ * tolerance since it was last written back are reported by {@link #numberOfNodes()} and written back.
+ * The ranks are kept as a {@link Resident} of the {@link GraphCatalog}.
+ */
+public class PageRankIncremental extends PageRankProjection implements Resident {
+    private final Projection projection;
+    private final ChangeTracker tracker;
+    private PagedAtomicDoubleArray deltas;
+    private PagedDoubleArray written;
+    // dense ids of the nodes to write back, null for all of them
+    private IntArrayList updated;
+
+    private PageRankIncremental(GraphDatabaseService db, ExecutorService pool, Precision precision, Projection projection) {
+        super(db, pool, precision);
+        this.projection = projection;
+        this.tracker = new ChangeTracker(projection);
+        db.registerTransactionEventHandler(tracker);
+    }
+
+    /**
+     * @return the resident PageRank of the projection, created and tracking changes from the first call on
+     */
+    public static synchronized PageRankIncremental forProjection(GraphDatabaseService db, ExecutorService pool,
+                                                                 Precision precision, Projection projection) {
+        Projection key = projection.withDirection(Direction.BOTH);
+        GraphCatalog catalog = GraphCatalog.forDatabase(db);
+        PageRankIncremental pageRank = catalog.resident(PageRankIncremental.class, key);
+        // ranks of another precision are replaced and closed
+        if (pageRank == null || pageRank.precision != precision) {
+            pageRank = new PageRankIncremental(db, pool, precision, key);
+            catalog.putResident(pageRank);
+        }
+        return pageRank;
+    }
+
+    @Override
+    public Projection projection() {
+        return projection;
+    }
+
+    @Override
+    public void close() {
+        db.unregisterTransactionEventHandler(tracker);
+    }
+
+    @Override
+    protected Direction loadDirection() {
+        return Direction.BOTH;
+    }
+
+    @Override
+    public synchronized void compute(Projection projection, int maxIterations, double tolerance) {
+        if (!this.projection.equals(projection.withDirection(Direction.BOTH))) {
+            throw new IllegalArgumentException("PageRank of " + this.projection + " can not compute " + projection);
+        }
+        // drained before loading, changes committed in between are applied again next time
+        ChangeTracker.Changes changes = tracker.drain();
+        if (graph == null || changes.isIncomplete()) {
+            recompute(maxIterations, tolerance);
+            return;
+        }
+        Graph current = GraphCatalog.load(db, pool, this.projection);
+        if (current == graph) {
+            updated = new IntArrayList();
+            iterations = 0;
+            residual = 0;
+            return;
+        }
+        update(current, changes, maxIterations, tolerance);
+    }
+
+    private void recompute(int maxIterations, double tolerance) {
+        super.compute(projection, maxIterations, tolerance);
+        int nodeCount = graph.nodeCount();
+        deltas = new PagedAtomicDoubleArray(nodeCount);
+        written = new PagedDoubleArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                written.set(node, dst.get(node));
+            }
+        });
+        updated = null;
+    }
+
+    private void update(Graph reloaded, ChangeTracker.Changes changes, int maxIterations, double tolerance) {
+        int nodeCount = reloaded.nodeCount();
+        Adjacency out = reloaded.adjacency(Direction.OUTGOING);
+        Adjacency in = reloaded.adjacency(Direction.INCOMING);
+        Ranks ranks = precision.newRanks(nodeCount);
+        PagedAtomicDoubleArray pending = new PagedAtomicDoubleArray(nodeCount);
+        PagedDoubleArray writtenRanks = new PagedDoubleArray(nodeCount);
+        PagedByteArray affected = new PagedByteArray(nodeCount);
+        IntArrayList nodes = new IntArrayList();
+
+        // carries the state over to the dense ids of the reloaded graph, nodes that are new are affected
+        runRanges(pool, nodeCount, (start, end) -> {
+            IntArrayList added = new IntArrayList();
+            for (int node = start; node < end; node++) {
+                int previous = graph.toMappedNodeId(reloaded.toOriginalNodeId(node));
+                if (previous == -1) {
+                    affected.set(node, (byte) 1);
+                    added.add(node);
+                } else {
+                    ranks.set(node, dst.get(previous));
+                    pending.set(node, deltas.get(previous));
+                    writtenRanks.set(node, written.get(previous));
+                }
+            }
+            synchronized (nodes) {
+                nodes.addAll(added);
+            }
+        });
+        AdjacencyCursor cursor = out.newCursor();
+        for (LongArrayList ends : new LongArrayList[]{changes.created(), changes.deleted()}) {
+            for (int i = 0; i < ends.size(); i++) {
+                int node = reloaded.toMappedNodeId(ends.getLong(i));
+                if (node == -1) continue;
+                affect(node, affected, nodes);
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    affect(cursor.nextTarget(), affected, nodes);
+                }
+            }
+        }
+
+        graph = reloaded;
+        dst = ranks;
+        deltas = pending;
+        written = writtenRanks;
+        boolean weighted = out.hasWeights();
+        PagedDoubleArray degrees = new PagedDoubleArray(nodeCount);
+        degrees.fill(-1);
+
+        // the pending delta of an affected node is whatever its rank misses to satisfy the new relationships
+        runRanges(pool, nodes.size(), (start, end) -> {
+            AdjacencyCursor sources = in.newCursor();
+            AdjacencyCursor targets = out.newCursor();
+            for (int index = start; index < end; index++) {
+                int node = nodes.getInt(index);
+                double sum = ONE_MINUS_ALPHA;
+                for (sources.init(node); sources.hasNext(); ) {
+                    int source = sources.nextTarget();
+                    double degree = degree(source, out, weighted, degrees, targets);
+                    if (degree > 0) sum += ALPHA * ranks.get(source) * sources.weight() / degree;
+                }
+                pending.set(node, sum - ranks.get(node));
+            }
+        });
+
+        PagedAtomicIntegerArray queued = new PagedAtomicIntegerArray(nodeCount);
+        PagedByteArray touched = new PagedByteArray(nodeCount);
+        IntArrayList changed = new IntArrayList();
+        IntArrayList frontier = new IntArrayList();
+        for (int i = 0; i < nodes.size(); i++) {
+            int node = nodes.getInt(i);
+            if (Math.abs(pending.get(node)) > tolerance) {
+                queued.set(node, 1);
+                frontier.add(node);
+            }
+        }
+
+        iterations = 0;
+        residual = 0;
+        while (iterations < maxIterations && !frontier.isEmpty()) {
+            IntArrayList current = frontier;
+            IntArrayList next = new IntArrayList();
+            DoubleAccumulator left = new DoubleAccumulator(Math::max, 0);
+            runRanges(pool, current.size(), (start, end) -> {
+                AdjacencyCursor targets = out.newCursor();
+                AdjacencyCursor degreeCursor = out.newCursor();
+                IntArrayList active = new IntArrayList();
+                IntArrayList moved = new IntArrayList();
+                double max = 0;
+                for (int index = start; index < end; index++) {
+                    int node = current.getInt(index);
+                    queued.set(node, 0);
+                    // other workers may push to the node meanwhile, what they add stays pending
+                    double delta = pending.getAndSet(node, 0);
+                    ranks.set(node, ranks.get(node) + delta);
+                    if (touched.get(node) == 0) {
+                        touched.set(node, (byte) 1);
+                        moved.add(node);
+                    }
+                    double degree = degree(node, out, weighted, degrees, degreeCursor);
+                    if (degree <= 0) continue;
+                    double share = ALPHA * delta / degree;
+                    for (targets.init(node); targets.hasNext(); ) {
+                        int target = targets.nextTarget();
+                        double sum = pending.addAndGet(target, share * targets.weight());
+                        if (Math.abs(sum) > tolerance) {
+                            if (queued.compareAndSet(target, 0, 1)) active.add(target);
+                        } else {
+                            max = Math.max(max, Math.abs(sum));
+                        }
+                    }
+                }
+                left.accumulate(max);
+                synchronized (next) {
+                    next.addAll(active);
+                    changed.addAll(moved);
+                }
+            });
+            iterations++;
+            residual = left.get();
+            frontier = next;
+        }
+
+        // ranks that moved less than the tolerance since they were written keep their property
+        updated = new IntArrayList();
+        for (int i = 0; i < changed.size(); i++) {
+            int node = changed.getInt(i);
+            if (Math.abs(ranks.get(node) - writtenRanks.get(node)) > tolerance) {
+                writtenRanks.set(node, ranks.get(node));
+                updated.add(node);
+            }
+        }
+    }
+
+    private static void affect(int node, PagedByteArray affected, IntArrayList nodes) {
+        if (affected.get(node) == 0) {
+            affected.set(node, (byte) 1);
+            nodes.add(node);
+        }
+    }
+
+    // out degrees are only summed up for the nodes the update reaches, workers may both compute the same one
+    private static double degree(int node, Adjacency out, boolean weighted, PagedDoubleArray degrees, AdjacencyCursor cursor) {
+        if (!weighted) return out.degree(node);
+        double degree = degrees.get(node);
+        if (degree < 0) {
+            degree = 0;
+            for (cursor.init(node); cursor.hasNext(); ) {
+                cursor.nextTarget();
+                degree += cursor.weight();
+            }
+            degrees.set(node, degree);
+        }
+        return degree;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return dst.get(updated != null ? updated.getInt((int) node) : node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId(updated != null ? updated.getInt((int) node) : (int) node);
+    }
+
+    /**
+     * @return the number of nodes whose ranks the last compute changed, all of them after a full computation
+     */
+    @Override
+    public long numberOfNodes() {
+        return updated != null ? updated.size() : super.numberOfNodes();
+    }
+}
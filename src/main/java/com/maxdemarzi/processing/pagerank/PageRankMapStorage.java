@@ -1,6 +1,6 @@
 package com.maxdemarzi.processing.pagerank;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
 import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2LongMap;
@@ -13,23 +13,23 @@ import org.neo4j.graphdb.*;
  */
 public class PageRankMapStorage implements PageRank {
     private final GraphDatabaseService db;
-    private final int nodes;
+    private IdMap idMap;
     private Long2DoubleMap dstMap;
 
     public PageRankMapStorage(GraphDatabaseService db) {
         this.db = db;
-        this.nodes = new NodeCounter().getNodeCount(db);
     }
 
     @Override
     public void compute(String label, String type, int iterations) {
         Long2DoubleMap srcMap = new Long2DoubleOpenHashMap();
         Long2LongMap degreeMap = new Long2LongOpenHashMap();
-        dstMap = new Long2DoubleOpenHashMap(nodes);
 
         RelationshipType relationshipType = RelationshipType.withName(type);
 
         try ( Transaction tx = db.beginTx()) {
+            idMap = IdMap.load(db, label);
+            dstMap = new Long2DoubleOpenHashMap(idMap.nodeCount());
             ResourceIterator<Node> nodes = db.findNodes(Label.label(label));
             while (nodes.hasNext()) {
                 Node node = nodes.next();
@@ -63,8 +63,13 @@ public class PageRankMapStorage implements PageRank {
         return dstMap != null ? dstMap.getOrDefault(node, -1D) : -1;
     }
 
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
+    }
+
     @Override
     public long numberOfNodes() {
-        return nodes;
+        return idMap != null ? idMap.nodeCount() : 0;
     }
 }
@@ -0,0 +1,131 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedAtomicLongArray;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * PageRank estimated from random walks instead of power iterations. Every node starts a number of walks that
+ * follow a random outgoing relationship with probability alpha and stop otherwise, or at a node without any.
+ * The expected number of visits of a node, times 1 - alpha and divided by the walks per node, is its rank,
+ * so the ranks have the same scale as {@link PageRankProjection}. Walks are cut off after the given iterations,
+ * like the paths a power iteration of that many steps sees. Every range of start nodes draws from its own
+ * random generator, seeded with the seed plus the first node of the range, so the ranks only depend on the seed and
+ * not on the scheduling. Unweighted steps read the picked neighbour directly from uncompressed adjacencies.
+ * The error is the standard error of a rank averaged over the nodes, taking visits as Poisson distributed.
+ */
+public class PageRankMonteCarlo extends PageRankProjection {
+    private final int walks;
+    private long seed = 42;
+    private double error;
+
+    public PageRankMonteCarlo(GraphDatabaseService db, ExecutorService pool, int walks) {
+        this(db, pool, Precision.DOUBLE, walks);
+    }
+
+    /**
+     * @param walks the walks started from every node, the error shrinks with the square root of them
+     */
+    public PageRankMonteCarlo(GraphDatabaseService db, ExecutorService pool, Precision precision, int walks) {
+        super(db, pool, precision);
+        this.walks = Math.max(1, walks);
+    }
+
+    public PageRankMonteCarlo withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    // only the outgoing relationships of the projection are loaded, the tolerance is not used
+    @Override
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.OUTGOING));
+        int nodeCount = graph.nodeCount();
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+
+        dst = precision.newRanks(nodeCount);
+        boolean weighted = out.hasWeights();
+        boolean direct = out.hasRandomAccess();
+        PagedDoubleArray degrees = weighted ? new SparseMatrixVector(pool, graph, kernel()).degrees(Direction.OUTGOING) : null;
+        // every walk visits its start node, only the later steps are counted here
+        PagedAtomicLongArray visits = new PagedAtomicLongArray(nodeCount);
+
+        runRanges(pool, nodeCount, (start, end) -> {
+            AdjacencyCursor cursor = out.newCursor();
+            SplittableRandom random = new SplittableRandom(seed + start);
+            for (int node = start; node < end; node++) {
+                for (int walk = 0; walk < walks; walk++) {
+                    int current = node;
+                    for (int step = 1; step < maxIterations && random.nextDouble() < ALPHA; step++) {
+                        int degree = out.degree(current);
+                        if (degree == 0 || weighted && degrees.get(current) <= 0) break;
+                        if (weighted) {
+                            current = pickWeighted(cursor.init(current), random.nextDouble() * degrees.get(current));
+                        } else if (direct) {
+                            current = out.target(current, random.nextInt(degree));
+                        } else {
+                            current = pick(cursor.init(current), random.nextInt(degree));
+                        }
+                        visits.addAndGet(current, 1);
+                    }
+                }
+            }
+        });
+
+        DoubleAdder errors = new DoubleAdder();
+        runRanges(pool, nodeCount, (start, end) -> {
+            double sum = 0;
+            for (int node = start; node < end; node++) {
+                long visited = maxIterations > 0 ? walks + visits.get(node) : 0;
+                dst.set(node, ONE_MINUS_ALPHA * visited / walks);
+                sum += ONE_MINUS_ALPHA * Math.sqrt(visited) / walks;
+            }
+            errors.add(sum);
+        });
+        error = nodeCount > 0 ? errors.sum() / nodeCount : 0;
+        // walks take at most that many steps, there is no residual to converge
+        iterations = maxIterations;
+        residual = error;
+    }
+
+    // the index-th neighbour of a compressed adjacency, its cursors can only be read in order
+    private static int pick(AdjacencyCursor cursor, int index) {
+        int target = cursor.nextTarget();
+        for (int i = 0; i < index; i++) {
+            target = cursor.nextTarget();
+        }
+        return target;
+    }
+
+    // the neighbour whose relationship covers the given part of the summed weights
+    private static int pickWeighted(AdjacencyCursor cursor, double remaining) {
+        int target = cursor.nextTarget();
+        remaining -= cursor.weight();
+        while (remaining > 0 && cursor.hasNext()) {
+            target = cursor.nextTarget();
+            remaining -= cursor.weight();
+        }
+        return target;
+    }
+
+    public int getWalks() {
+        return walks;
+    }
+
+    // the estimated standard error of a rank, averaged over the nodes
+    public double getError() {
+        return error;
+    }
+}
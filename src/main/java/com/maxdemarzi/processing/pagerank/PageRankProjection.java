@@ -0,0 +1,127 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.Iterative;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * PageRank over the in-memory {@link Graph}, pulling instead of pushing like {@link PageRankArrayStorageParallelSPI}:
+ * every worker owns a range of nodes and sums the ranks of their incoming neighbours from the reverse adjacency,
+ * so ranks are written with plain stores and high in-degree nodes no longer contend on an atomic.
+ * The multiplication is left to a {@link SparseMatrixVector}, subclasses can pick another kernel.
+ * On weighted projections every node splits its rank by the weights of its relationships instead of evenly.
+ * Contributions are summed up as doubles, the {@link Precision} decides how ranks are kept between iterations.
+ * The residual is the largest change of a single rank.
+ */
+public class PageRankProjection implements PageRank, Iterative {
+    protected final GraphDatabaseService db;
+    protected final ExecutorService pool;
+    protected final Precision precision;
+    protected Graph graph;
+    protected Ranks dst;
+    protected int iterations;
+    protected double residual;
+
+    public PageRankProjection(GraphDatabaseService db, ExecutorService pool) {
+        this(db, pool, Precision.DOUBLE);
+    }
+
+    public PageRankProjection(GraphDatabaseService db, ExecutorService pool, Precision precision) {
+        this.db = db;
+        this.pool = pool;
+        this.precision = precision;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations);
+    }
+
+    public void compute(Projection projection, int iterations) {
+        compute(projection, iterations, 0);
+    }
+
+    // only the relationships the kernel reads are loaded, the incoming ones when pulling
+    public void compute(Projection projection, int maxIterations, double tolerance) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(loadDirection()));
+        int nodeCount = graph.nodeCount();
+        SparseMatrixVector matrix = new SparseMatrixVector(pool, graph, kernel());
+
+        Ranks src = precision.newRanks(nodeCount);
+        dst = precision.newRanks(nodeCount);
+        PagedDoubleArray degrees = matrix.degrees(Direction.OUTGOING);
+
+        iterations = 0;
+        residual = 0;
+        while (iterations < maxIterations) {
+            startIteration(src, dst, degrees, nodeCount);
+            residual = matrix.multiply(Direction.OUTGOING, src::get, (node, product) -> {
+                double sum = ONE_MINUS_ALPHA + product;
+                double change = Math.abs(sum - dst.get(node));
+                dst.set(node, sum);
+                return change;
+            });
+            iterations++;
+            if (residual < tolerance) break;
+        }
+    }
+
+    // how the ranks are multiplied by the adjacency
+    protected SparseMatrixVector.Kernel kernel() {
+        return SparseMatrixVector.Kernel.PULL;
+    }
+
+    // the relationships the kernel reads, subclasses that also push along them load both directions
+    protected Direction loadDirection() {
+        return SparseMatrixVector.loadDirection(Direction.OUTGOING, kernel());
+    }
+
+    private void startIteration(Ranks src, Ranks dst, PagedDoubleArray degrees, int nodeCount) {
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                double degree = degrees.get(node);
+                src.set(node, degree <= 0 ? 0 : ALPHA * dst.get(node) / degree);
+            }
+        });
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public double getResidual() {
+        return residual;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = dst != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? dst.get(index) : 0;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return dst.get(node);
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.graph.Scatter;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * PageRank that pushes the ranks along the forward adjacency with a {@link Scatter}, like
+ * {@link PageRankArrayStorageParallelSPI} does over the store. Blocked scatters bin the contributions by target
+ * first, which pays off once the ranks outgrow the cpu caches, the others add them to the targets atomically.
+ * Only the outgoing relationships of the projection are loaded.
+ */
+public class PageRankPush extends PageRankProjection {
+    private final boolean blocked;
+
+    public PageRankPush(GraphDatabaseService db, ExecutorService pool, boolean blocked) {
+        this(db, pool, Precision.DOUBLE, blocked);
+    }
+
+    public PageRankPush(GraphDatabaseService db, ExecutorService pool, Precision precision, boolean blocked) {
+        super(db, pool, precision);
+        this.blocked = blocked;
+    }
+
+    @Override
+    protected SparseMatrixVector.Kernel kernel() {
+        return blocked ? SparseMatrixVector.Kernel.BLOCKED : SparseMatrixVector.Kernel.PUSH;
+    }
+}
@@ -0,0 +1,138 @@
+package com.maxdemarzi.processing.pagerank;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongComparator;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.impl.api.store.RelationshipIterator;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Arrays;
+
+import static com.maxdemarzi.processing.pagerank.PageRank.ALPHA;
+import static com.maxdemarzi.processing.pagerank.PageRank.ONE_MINUS_ALPHA;
+import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_LABEL;
+import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_RELATIONSHIP_TYPE;
+
+/**
+ * PageRank personalized to a few source nodes, approximated by forward pushes (Andersen, Chung and Lang).
+ * The sources start with the whole residual, a node whose residual exceeds epsilon times its degree keeps
+ * 1 - alpha of it as score and spreads the rest over its neighbours. Only nodes that receive enough residual
+ * are ever read, straight from the store, so the work depends on epsilon and not on the size of the graph.
+ * Scores sum up to at most 1, nodes that were never reached have none.
+ */
+public class PersonalizedPageRank {
+    private final GraphDatabaseAPI db;
+    private final Long2DoubleOpenHashMap scores = new Long2DoubleOpenHashMap();
+    private int pushes;
+
+    public PersonalizedPageRank(GraphDatabaseService db) {
+        this.db = (GraphDatabaseAPI) db;
+    }
+
+    /**
+     * @param direction the relationships of a node its residual is pushed along
+     * @param sources nodes the walks restart from, ids without the label are ignored
+     */
+    public void compute(String label, String type, Direction direction, long[] sources, double epsilon) {
+        scores.clear();
+        pushes = 0;
+        try (Transaction tx = db.beginTx()) {
+            ThreadToStatementContextBridge ctx = db.getDependencyResolver().resolveDependency(ThreadToStatementContextBridge.class);
+            ReadOperations ops = ctx.get().readOperations();
+            int labelId = ops.labelGetForName(label);
+            int typeId = ops.relationshipTypeGetForName(type);
+            if (labelId == NO_SUCH_LABEL || typeId == NO_SUCH_RELATIONSHIP_TYPE) return;
+
+            LongArrayList starts = new LongArrayList(sources.length);
+            for (long source : sources) {
+                if (source >= 0 && ops.nodeExists(source) && ops.nodeHasLabel(source, labelId) && !starts.contains(source)) {
+                    starts.add(source);
+                }
+            }
+            Long2DoubleOpenHashMap residuals = new Long2DoubleOpenHashMap();
+            LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+            LongOpenHashSet queued = new LongOpenHashSet();
+            for (long source : starts) {
+                residuals.put(source, 1.0 / starts.size());
+                queue.enqueue(source);
+                queued.add(source);
+            }
+
+            LongArrayList neighbours = new LongArrayList();
+            while (!queue.isEmpty()) {
+                long node = queue.dequeueLong();
+                queued.remove(node);
+                double residual = residuals.remove(node);
+                scores.addTo(node, ONE_MINUS_ALPHA * residual);
+                pushes++;
+
+                neighbours(ops, node, direction, typeId, labelId, neighbours);
+                if (neighbours.isEmpty()) continue;
+                double share = ALPHA * residual / neighbours.size();
+                for (int i = 0; i < neighbours.size(); i++) {
+                    long neighbour = neighbours.getLong(i);
+                    double pending = residuals.addTo(neighbour, share) + share;
+                    // the stored degree ignores labels, it only has to bound how often a node is pushed
+                    if (pending > epsilon * ops.nodeGetDegree(neighbour, direction, typeId) && queued.add(neighbour)) {
+                        queue.enqueue(neighbour);
+                    }
+                }
+            }
+            tx.success();
+        } catch (EntityNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void neighbours(ReadOperations ops, long node, Direction direction, int typeId, int labelId,
+                                   LongArrayList neighbours) throws EntityNotFoundException {
+        neighbours.clear();
+        RelationshipIterator rels = ops.nodeGetRelationships(node, direction, typeId);
+        while (rels.hasNext()) {
+            rels.relationshipVisit(rels.next(), (relId, type, startNode, endNode) ->
+                    neighbours.add(startNode == node ? endNode : startNode));
+        }
+        int kept = 0;
+        for (int i = 0; i < neighbours.size(); i++) {
+            long neighbour = neighbours.getLong(i);
+            if (ops.nodeHasLabel(neighbour, labelId)) {
+                neighbours.set(kept++, neighbour);
+            }
+        }
+        neighbours.size(kept);
+    }
+
+    public double getResult(long node) {
+        return scores.get(node);
+    }
+
+    // the nodes with the highest scores, best first
+    public long[] top(int k) {
+        long[] nodes = scores.keySet().toLongArray();
+        LongArrays.quickSort(nodes, new AbstractLongComparator() {
+            @Override
+            public int compare(long a, long b) {
+                return Double.compare(scores.get(b), scores.get(a));
+            }
+        });
+        return Arrays.copyOf(nodes, Math.min(k, nodes.length));
+    }
+
+    // how many nodes have a score
+    public int numberOfNodes() {
+        return scores.size();
+    }
+
+    public int getPushes() {
+        return pushes;
+    }
+}
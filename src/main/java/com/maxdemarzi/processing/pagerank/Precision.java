@@ -0,0 +1,34 @@
+package com.maxdemarzi.processing.pagerank;
+
+/**
+ * How {@link PageRankProjection} stores and accumulates ranks. Every node sums its incoming contributions
+ * in a local double, the precision only decides what is kept between iterations.
+ */
+public enum Precision {
+    // ints scaled by Utils.toInt like the store based implementations, small contributions are truncated
+    FIXED {
+        @Override
+        Ranks newRanks(long size) {
+            return new Ranks.Fixed(size);
+        }
+    },
+    // half the memory of doubles, enough for ranks that are compared rather than summed up
+    FLOAT {
+        @Override
+        Ranks newRanks(long size) {
+            return new Ranks.Floats(size);
+        }
+    },
+    DOUBLE {
+        @Override
+        Ranks newRanks(long size) {
+            return new Ranks.Doubles(size);
+        }
+    };
+
+    abstract Ranks newRanks(long size);
+
+    public static Precision from(String name) {
+        return valueOf(name.toUpperCase());
+    }
+}
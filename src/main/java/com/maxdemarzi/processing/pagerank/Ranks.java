@@ -0,0 +1,72 @@
+package com.maxdemarzi.processing.pagerank;
+
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import com.maxdemarzi.processing.paged.PagedFloatArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+
+import static com.maxdemarzi.processing.Utils.toFloat;
+import static com.maxdemarzi.processing.Utils.toInt;
+
+/**
+ * Ranks of the dense node ids in the representation of a {@link Precision}.
+ */
+abstract class Ranks {
+
+    abstract double get(long node);
+
+    abstract void set(long node, double value);
+
+    static class Fixed extends Ranks {
+        private final PagedIntArray values;
+
+        Fixed(long size) {
+            values = new PagedIntArray(size);
+        }
+
+        @Override
+        double get(long node) {
+            return toFloat(values.get(node));
+        }
+
+        @Override
+        void set(long node, double value) {
+            values.set(node, toInt(value));
+        }
+    }
+
+    static class Floats extends Ranks {
+        private final PagedFloatArray values;
+
+        Floats(long size) {
+            values = new PagedFloatArray(size);
+        }
+
+        @Override
+        double get(long node) {
+            return values.get(node);
+        }
+
+        @Override
+        void set(long node, double value) {
+            values.set(node, (float) value);
+        }
+    }
+
+    static class Doubles extends Ranks {
+        private final PagedDoubleArray values;
+
+        Doubles(long size) {
+            values = new PagedDoubleArray(size);
+        }
+
+        @Override
+        double get(long node) {
+            return values.get(node);
+        }
+
+        @Override
+        void set(long node, double value) {
+            values.set(node, value);
+        }
+    }
+}
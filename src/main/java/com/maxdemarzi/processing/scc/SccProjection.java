@@ -0,0 +1,294 @@
+package com.maxdemarzi.processing.scc;
+
+import com.maxdemarzi.processing.Algorithm;
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedAtomicIntegerArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Strongly connected components over the forward and reverse adjacency of the in-memory graph, all steps in parallel
+    (multistep, Slota et al.). Trimming first gives every node without a live incoming or outgoing neighbour a component
+    of its own. A forward and a backward search from the node with the most in times out relationships then find the
+    largest component, which usually holds most of the graph. The rest is colored: every node takes the highest id that
+    reaches it, the nodes that kept their own id are roots, and each root collects the nodes of its color that reach it
+    backwards. Colored components are removed and the coloring repeats until no node is left.
+    Every component is named after one of its nodes.
+ */
+
+public class SccProjection implements Algorithm {
+    public static final int TRIM_ROUNDS = 5;
+    private static final int UNASSIGNED = -1;
+
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    private Adjacency out;
+    private Adjacency in;
+    // the dense id the component of a node is named after, UNASSIGNED while the node is live
+    private PagedAtomicIntegerArray components;
+    private long componentCount;
+
+    public SccProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations);
+    }
+
+    // both directions of the projection are loaded
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.BOTH));
+        search();
+    }
+
+    private void search() {
+        out = graph.adjacency(Direction.OUTGOING);
+        in = graph.adjacency(Direction.INCOMING);
+        int nodeCount = graph.nodeCount();
+        components = new PagedAtomicIntegerArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                components.set(node, UNASSIGNED);
+            }
+        });
+
+        long live = nodeCount - trim();
+        if (live > 0) {
+            live -= forwardBackward(pivot());
+        }
+        if (live > 0) {
+            color();
+        }
+
+        LongAdder roots = new LongAdder();
+        runRanges(pool, nodeCount, (start, end) -> {
+            int count = 0;
+            for (int node = start; node < end; node++) {
+                if (components.get(node) == node) count++;
+            }
+            roots.add(count);
+        });
+        componentCount = roots.sum();
+    }
+
+    // repeatedly assigns live nodes without a live neighbour on either side a component of their own
+    private long trim() {
+        long trimmed = 0;
+        for (int round = 0; round < TRIM_ROUNDS; round++) {
+            LongAdder removed = new LongAdder();
+            runRanges(pool, graph.nodeCount(), (start, end) -> {
+                AdjacencyCursor outCursor = out.newCursor();
+                AdjacencyCursor inCursor = in.newCursor();
+                int count = 0;
+                for (int node = start; node < end; node++) {
+                    if (components.get(node) != UNASSIGNED) continue;
+                    if (!hasLive(outCursor.init(node), node) || !hasLive(inCursor.init(node), node)) {
+                        components.set(node, node);
+                        count++;
+                    }
+                }
+                removed.add(count);
+            });
+            trimmed += removed.sum();
+            if (removed.sum() == 0) break;
+        }
+        return trimmed;
+    }
+
+    // self relationships do not keep a node alive
+    private boolean hasLive(AdjacencyCursor cursor, int node) {
+        while (cursor.hasNext()) {
+            int target = cursor.nextTarget();
+            if (target != node && components.get(target) == UNASSIGNED) return true;
+        }
+        return false;
+    }
+
+    // the live node with the largest product of in and out degree, most likely part of the largest component
+    private int pivot() {
+        AtomicLong best = new AtomicLong(-1);
+        runRanges(pool, graph.nodeCount(), (start, end) -> {
+            long degree = -1;
+            int pivot = -1;
+            for (int node = start; node < end; node++) {
+                if (components.get(node) != UNASSIGNED) continue;
+                long product = (long) out.degree(node) * in.degree(node);
+                if (product > degree) {
+                    degree = product;
+                    pivot = node;
+                }
+            }
+            if (pivot == -1) return;
+            // the degree goes in the upper bits, so the largest one wins
+            long candidate = (Math.min(degree, Integer.MAX_VALUE) << 32) | pivot;
+            best.accumulateAndGet(candidate, Math::max);
+        });
+        return (int) best.get();
+    }
+
+    /**
+     * Searches forward from the pivot, then backward among the nodes reached, both meet in the component of the pivot.
+     * @return the size of that component
+     */
+    private long forwardBackward(int pivot) {
+        PagedAtomicIntegerArray reached = new PagedAtomicIntegerArray(graph.nodeCount());
+        reached.set(pivot, 1);
+        IntArrayList frontier = IntArrayList.wrap(new int[]{pivot});
+        while (!frontier.isEmpty()) {
+            frontier = expand(frontier, out, (from, target) ->
+                    components.get(target) == UNASSIGNED && reached.compareAndSet(target, 0, 1));
+        }
+
+        components.set(pivot, pivot);
+        long size = 1;
+        frontier = IntArrayList.wrap(new int[]{pivot});
+        while (!frontier.isEmpty()) {
+            frontier = expand(frontier, in, (from, target) ->
+                    reached.get(target) == 1 && components.compareAndSet(target, UNASSIGNED, pivot));
+            size += frontier.size();
+        }
+        return size;
+    }
+
+    // only the live nodes are visited, fewer with every round
+    private void color() {
+        PagedIntArray colors = new PagedIntArray(graph.nodeCount());
+        IntArrayList live = new IntArrayList();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (components.get(node) == UNASSIGNED) live.add(node);
+        }
+        while (!live.isEmpty()) {
+            int[] nodes = live.elements();
+            int liveCount = live.size();
+            runRanges(pool, liveCount, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    colors.set(nodes[i], nodes[i]);
+                }
+            });
+            // colors only ever grow, so reading a neighbour mid-update is harmless
+            boolean changed = true;
+            while (changed) {
+                LongAdder changes = new LongAdder();
+                runRanges(pool, liveCount, (start, end) -> {
+                    AdjacencyCursor cursor = in.newCursor();
+                    int count = 0;
+                    for (int i = start; i < end; i++) {
+                        int node = nodes[i];
+                        int color = colors.get(node);
+                        for (cursor.init(node); cursor.hasNext(); ) {
+                            int source = cursor.nextTarget();
+                            if (components.get(source) == UNASSIGNED && colors.get(source) > color) {
+                                color = colors.get(source);
+                            }
+                        }
+                        if (color != colors.get(node)) {
+                            colors.set(node, color);
+                            count++;
+                        }
+                    }
+                    changes.add(count);
+                });
+                changed = changes.sum() > 0;
+            }
+
+            // every root collects the nodes of its color that reach it
+            IntArrayList frontier = new IntArrayList();
+            for (int i = 0; i < liveCount; i++) {
+                if (colors.get(nodes[i]) == nodes[i]) frontier.add(nodes[i]);
+            }
+            for (int i = 0; i < frontier.size(); i++) {
+                components.set(frontier.getInt(i), frontier.getInt(i));
+            }
+            while (!frontier.isEmpty()) {
+                frontier = expand(frontier, in, (from, target) -> {
+                    int color = colors.get(from);
+                    return colors.get(target) == color && components.compareAndSet(target, UNASSIGNED, color);
+                });
+            }
+
+            IntArrayList left = new IntArrayList();
+            for (int i = 0; i < liveCount; i++) {
+                if (components.get(nodes[i]) == UNASSIGNED) left.add(nodes[i]);
+            }
+            live = left;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Visit {
+        // claims the target, only the first caller for a target may return true
+        boolean claim(int from, int target);
+    }
+
+    // one level of a parallel search, the targets that were claimed make up the next frontier
+    private IntArrayList expand(IntArrayList frontier, Adjacency adjacency, Visit visit) {
+        IntArrayList next = new IntArrayList();
+        int[] nodes = frontier.elements();
+        runRanges(pool, frontier.size(), Math.max(1_000, frontier.size() / 64), (start, end) -> {
+            AdjacencyCursor cursor = adjacency.newCursor();
+            IntArrayList claimed = new IntArrayList();
+            for (int i = start; i < end; i++) {
+                int node = nodes[i];
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    int target = cursor.nextTarget();
+                    if (visit.claim(node, target)) claimed.add(target);
+                }
+            }
+            synchronized (next) {
+                next.addAll(claimed);
+            }
+        });
+        return next;
+    }
+
+    public long getComponentCount() {
+        return componentCount;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = components != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(components.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return "scc";
+    }
+
+    @Override
+    public boolean isWritten(double value) {
+        return value >= 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.maxdemarzi.processing.shortestpath;
+
+import com.maxdemarzi.processing.Algorithm;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedFloatArray;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/*
+    Distances from a single node with Dijkstra over the in-memory graph. Relationship costs are the weights of
+    the projection, or 1 when it has none, instead of the constant cost of Utils.getSingleSourceShortestPath.
+ */
+
+public class ShortestPathProjection implements Algorithm {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private final long source;
+    private Graph graph;
+    private PagedFloatArray distance;
+
+    public ShortestPathProjection(GraphDatabaseService db, ExecutorService pool, long source) {
+        this.db = db;
+        this.pool = pool;
+        this.source = source;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.BOTH), iterations);
+    }
+
+    // follows the relationships in the direction of the projection
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection);
+        int nodeCount = graph.nodeCount();
+        distance = new PagedFloatArray(nodeCount);
+        distance.fill(Float.POSITIVE_INFINITY);
+        int start = graph.toMappedNodeId(source);
+        if (start == -1) return;
+
+        List<AdjacencyCursor> cursors = new ArrayList<>(2);
+        for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+            if (projection.hasDirection(direction)) {
+                cursors.add(graph.adjacency(direction).newCursor());
+            }
+        }
+
+        // entries hold the distance in the upper and the node in the lower half, stale ones are skipped when polled
+        LongHeapPriorityQueue queue = new LongHeapPriorityQueue();
+        distance.set(start, 0);
+        queue.enqueue(entry(0, start));
+        while (!queue.isEmpty()) {
+            long entry = queue.dequeueLong();
+            int node = (int) entry;
+            float current = Float.intBitsToFloat((int) (entry >>> 32));
+            if (current > distance.get(node)) continue;
+            for (AdjacencyCursor cursor : cursors) {
+                for (cursor.init(node); cursor.hasNext(); ) {
+                    int target = cursor.nextTarget();
+                    float cost = cursor.weight();
+                    if (cost < 0) {
+                        throw new IllegalArgumentException("Negative relationship weight " + cost + " in " + projection);
+                    }
+                    if (current + cost < distance.get(target)) {
+                        distance.set(target, current + cost);
+                        queue.enqueue(entry(current + cost, target));
+                    }
+                }
+            }
+        }
+    }
+
+    // non negative floats keep their order when compared by their bits
+    private static long entry(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | node;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = distance != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    // unreachable nodes have a distance of -1
+    @Override
+    public double getResultAt(long node) {
+        float value = distance.get(node);
+        return value == Float.POSITIVE_INFINITY ? -1 : value;
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+
+    @Override
+    public String getPropertyName() {
+        return "shortest_path";
+    }
+}
@@ -11,4 +11,9 @@ public interface UnionFind extends Algorithm {
         return "unionfind";
     }
 
+    // the result is the id of a node, which may be 0
+    default boolean isWritten(double value) {
+        return value >= 0;
+    }
+
 }
@@ -0,0 +1,434 @@
+package com.maxdemarzi.processing.unionfind;
+
+import com.maxdemarzi.processing.graph.ChangeTracker;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.IdMap;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.PropertyPredicate;
+import com.maxdemarzi.processing.graph.Resident;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.neo4j.graphdb.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/**
+ * Connected components that stay resident between requests and follow the changes of their projection.
+ * The first request, or one after changes a {@link ChangeTracker} could not describe, runs {@link UnionFindParallel}.
+ * After that every lookup and refresh applies the committed changes first: created relationships union their ends and
+ * nodes that join the projection get a slot of their own, so lookups answer with the current components. Deleted
+ * relationships only mark the component of their ends dirty until the next refresh. The dirty components alone are
+ * then split up and linked again from the relationships of their nodes in the store, unless they hold more than
+ * {@link #MAX_RELINKED} nodes, which are computed again in parallel instead. Changes the tracker could not describe
+ * also wait for the next refresh, which computes everything again.
+ * Deleted nodes keep their slot until everything is computed again, but are part of no component: lookups answer -1
+ * for them and they are not written back.
+ * The components are kept as a {@link Resident} of the {@link GraphCatalog}. Later changes move slots around, so the
+ * components are written back from a {@link #snapshot()}.
+ */
+public class UnionFindIncremental implements UnionFind, Resident {
+    // beyond that many nodes in dirty components linking them one by one is slower than computing all in parallel
+    public static final int MAX_RELINKED = 100_000;
+
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private final Projection projection;
+    private final ChangeTracker tracker;
+    private final RelationshipType[] types;
+    // the nodes of the last full compute are slots 0 to loaded - 1, nodes that joined since follow after them
+    private IdMap idMap;
+    private int loaded;
+    private PagedIntArray parents;
+    private final Long2IntOpenHashMap addedSlots = new Long2IntOpenHashMap();
+    private final LongArrayList addedIds = new LongArrayList();
+    private final IntArrayList addedParents = new IntArrayList();
+    // start and end node ids of the relationships deleted since the last refresh, one pair after the other
+    private final LongArrayList deleted = new LongArrayList();
+    private boolean incomplete;
+    // slots of the nodes deleted since the last full compute
+    private final IntOpenHashSet removed = new IntOpenHashSet();
+    // nodes linked again by the last refresh, -1 after a full compute
+    private int relinked;
+    private int maxRelinked = MAX_RELINKED;
+
+    private UnionFindIncremental(GraphDatabaseService db, ExecutorService pool, Projection projection) {
+        this.db = db;
+        this.pool = pool;
+        this.projection = projection;
+        this.tracker = new ChangeTracker(projection);
+        List<String> names = projection.getTypes();
+        this.types = new RelationshipType[names.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = RelationshipType.withName(names.get(i));
+        }
+        addedSlots.defaultReturnValue(-1);
+        db.registerTransactionEventHandler(tracker);
+    }
+
+    /**
+     * @return the resident components of the projection, created and tracking changes from the first call on
+     */
+    public static synchronized UnionFindIncremental forProjection(GraphDatabaseService db, ExecutorService pool, Projection projection) {
+        Projection key = projection.withDirection(Direction.BOTH);
+        GraphCatalog catalog = GraphCatalog.forDatabase(db);
+        UnionFindIncremental unionFind = catalog.resident(UnionFindIncremental.class, key);
+        if (unionFind == null) {
+            unionFind = new UnionFindIncremental(db, pool, key);
+            catalog.putResident(unionFind);
+        }
+        return unionFind;
+    }
+
+    public UnionFindIncremental withMaxRelinked(int maxRelinked) {
+        this.maxRelinked = maxRelinked;
+        return this;
+    }
+
+    @Override
+    public Projection projection() {
+        return projection;
+    }
+
+    @Override
+    public void close() {
+        db.unregisterTransactionEventHandler(tracker);
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        refresh();
+    }
+
+    /**
+     * Applies the changes committed since the last call and links the components split up by deleted relationships
+     * again, or computes all components on the first call.
+     */
+    public synchronized void refresh() {
+        if (parents == null) {
+            // drained before reading, changes committed in between are applied again next time
+            tracker.drain();
+            recompute();
+            return;
+        }
+        apply();
+        if (incomplete) {
+            recompute();
+            return;
+        }
+        relinked = 0;
+        if (deleted.isEmpty()) return;
+
+        // relationships only ever connect nodes of the same component
+        IntOpenHashSet dirty = new IntOpenHashSet();
+        for (int i = 0; i < deleted.size(); i += 2) {
+            int start = slot(deleted.getLong(i));
+            int end = slot(deleted.getLong(i + 1));
+            if (start == -1 || end == -1) continue;
+            int root = find(start);
+            if (root == find(end)) dirty.add(root);
+        }
+        deleted.clear();
+        if (dirty.isEmpty()) return;
+        IntArrayList members = members(dirty);
+        if (members.size() > maxRelinked) {
+            recompute();
+            return;
+        }
+        try (Transaction tx = db.beginTx()) {
+            relink(members);
+            tx.success();
+        }
+    }
+
+    // unions the ends of the relationships created since the last call, deletions wait for the next refresh
+    private void apply() {
+        ChangeTracker.Changes changes = tracker.drain();
+        incomplete |= changes.isIncomplete();
+        if (incomplete || changes.isEmpty()) return;
+
+        LongArrayList created = changes.createdRelationships();
+        if (!created.isEmpty()) {
+            try (Transaction tx = db.beginTx()) {
+                for (int i = 0; i < created.size(); i++) {
+                    try {
+                        Relationship relationship = db.getRelationshipById(created.getLong(i));
+                        if (!accepts(projection.getRelationshipFilter(), relationship)) continue;
+                        int start = slotOrAdd(relationship.getStartNode());
+                        int end = slotOrAdd(relationship.getEndNode());
+                        if (start != -1 && end != -1) union(start, end);
+                    } catch (NotFoundException e) {
+                        // deleted since, the deletion is part of the changes
+                    }
+                }
+                tx.success();
+            }
+        }
+        deleted.addAll(changes.deleted());
+        LongArrayList deletedNodes = changes.deletedNodes();
+        for (int i = 0; i < deletedNodes.size(); i++) {
+            int slot = slot(deletedNodes.getLong(i));
+            if (slot != -1) removed.add(slot);
+        }
+    }
+
+    private void recompute() {
+        UnionFindParallel unionFind = new UnionFindParallel(db, pool, true);
+        unionFind.compute(projection, 0);
+        idMap = unionFind.graph().idMap();
+        loaded = idMap.nodeCount();
+        parents = new PagedIntArray(loaded);
+        runRanges(pool, loaded, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                parents.set(node, unionFind.rootAt(node));
+            }
+        });
+        addedSlots.clear();
+        addedIds.clear();
+        addedParents.clear();
+        deleted.clear();
+        incomplete = false;
+        removed.clear();
+        relinked = -1;
+    }
+
+    // the nodes of the dirty components, the ranges of slots are searched in parallel
+    private IntArrayList members(IntOpenHashSet dirty) {
+        IntArrayList members = new IntArrayList();
+        runRanges(pool, slotCount(), (start, end) -> {
+            IntArrayList found = new IntArrayList();
+            for (int slot = start; slot < end; slot++) {
+                if (dirty.contains(root(slot))) found.add(slot);
+            }
+            synchronized (members) {
+                members.addAll(found);
+            }
+        });
+        return members;
+    }
+
+    // splits the dirty components into their nodes and links them again along their outgoing relationships
+    private void relink(IntArrayList members) {
+        for (int i = 0; i < members.size(); i++) {
+            setParent(members.getInt(i), members.getInt(i));
+        }
+        for (int i = 0; i < members.size(); i++) {
+            int member = members.getInt(i);
+            try {
+                Node node = db.getNodeById(originalId(member));
+                for (Relationship relationship : node.getRelationships(Direction.OUTGOING, types)) {
+                    if (!accepts(projection.getRelationshipFilter(), relationship)) continue;
+                    int other = slot(relationship.getEndNode().getId());
+                    if (other != -1) union(member, other);
+                }
+            } catch (NotFoundException e) {
+                // deleted, stays on its own
+            }
+        }
+        relinked = members.size();
+    }
+
+    private int slotOrAdd(Node node) {
+        int slot = slot(node.getId());
+        if (slot != -1 || !joins(node)) return slot;
+        slot = slotCount();
+        addedSlots.put(node.getId(), slot);
+        addedIds.add(node.getId());
+        addedParents.add(slot);
+        return slot;
+    }
+
+    private boolean joins(Node node) {
+        for (String label : projection.getLabels()) {
+            if (node.hasLabel(Label.label(label))) {
+                return accepts(projection.getNodeFilter(), node);
+            }
+        }
+        return false;
+    }
+
+    private static boolean accepts(List<PropertyPredicate> filter, PropertyContainer entity) {
+        for (PropertyPredicate predicate : filter) {
+            if (!predicate.test(entity.getProperty(predicate.getKey(), null))) return false;
+        }
+        return true;
+    }
+
+    private int slotCount() {
+        return loaded + addedIds.size();
+    }
+
+    private int slot(long originalId) {
+        int slot = idMap.toMappedNodeId(originalId);
+        return slot != -1 ? slot : addedSlots.get(originalId);
+    }
+
+    // the slot of a node that is part of the components, -1 for others and deleted nodes
+    private int member(long originalId) {
+        int slot = slot(originalId);
+        return slot != -1 && !removed.contains(slot) ? slot : -1;
+    }
+
+    private long originalId(int slot) {
+        return slot < loaded ? idMap.toOriginalNodeId(slot) : addedIds.getLong(slot - loaded);
+    }
+
+    private int parent(int slot) {
+        return slot < loaded ? parents.get(slot) : addedParents.getInt(slot - loaded);
+    }
+
+    private void setParent(int slot, int parent) {
+        if (slot < loaded) {
+            parents.set(slot, parent);
+        } else {
+            addedParents.set(slot - loaded, parent);
+        }
+    }
+
+    // the lower root becomes the root, like in UnionFindParallel
+    private void union(int x, int y) {
+        x = find(x);
+        y = find(y);
+        if (x == y) return;
+        if (x < y) {
+            setParent(y, x);
+        } else {
+            setParent(x, y);
+        }
+    }
+
+    private int find(int x) {
+        while (x != parent(x)) {
+            setParent(x, parent(parent(x)));
+            x = parent(x);
+        }
+        return x;
+    }
+
+    // a find that leaves the parents alone, for the readers that run in parallel
+    private int root(int x) {
+        while (x != parent(x)) {
+            x = parent(x);
+        }
+        return x;
+    }
+
+    // lookups apply the created relationships, only the first one computes all components
+    private void current() {
+        if (parents == null) {
+            refresh();
+        } else {
+            apply();
+        }
+    }
+
+    /**
+     * @return the id of the node the component of the node is named after, -1 if it is not part of the projection
+     */
+    public synchronized long component(long node) {
+        current();
+        int slot = member(node);
+        return slot != -1 ? originalId(find(slot)) : -1;
+    }
+
+    public synchronized boolean sameComponent(long node, long other) {
+        current();
+        int slot = member(node);
+        int otherSlot = member(other);
+        return slot != -1 && otherSlot != -1 && find(slot) == find(otherSlot);
+    }
+
+    /**
+     * @return the components as of now, which the changes applied later leave alone, to write them back from
+     */
+    public synchronized UnionFind snapshot() {
+        int slots = slotCount();
+        PagedLongArray ids = new PagedLongArray(slots);
+        PagedLongArray components = new PagedLongArray(slots);
+        runRanges(pool, slots, (start, end) -> {
+            for (int slot = start; slot < end; slot++) {
+                ids.set(slot, originalId(slot));
+                components.set(slot, removed.contains(slot) ? -1 : originalId(root(slot)));
+            }
+        });
+        Long2IntOpenHashMap slotsOfAdded = new Long2IntOpenHashMap(addedSlots);
+        slotsOfAdded.defaultReturnValue(-1);
+        return new Snapshot(idMap, slotsOfAdded, ids, components);
+    }
+
+    /**
+     * @return the nodes the last refresh linked again, -1 if it computed all components
+     */
+    public int getRelinked() {
+        return relinked;
+    }
+
+    @Override
+    public synchronized double getResult(long node) {
+        int slot = parents != null ? member(node) : -1;
+        return slot != -1 ? getResultAt(slot) : -1;
+    }
+
+    @Override
+    public synchronized double getResultAt(long node) {
+        return removed.contains((int) node) ? -1 : originalId(root((int) node));
+    }
+
+    @Override
+    public synchronized long toOriginalNodeId(long node) {
+        return originalId((int) node);
+    }
+
+    @Override
+    public synchronized long numberOfNodes() {
+        return parents != null ? slotCount() : 0;
+    }
+
+    private static class Snapshot implements UnionFind {
+        private final IdMap idMap;
+        private final Long2IntOpenHashMap addedSlots;
+        private final PagedLongArray ids;
+        // the id of the node the component of every slot is named after, -1 for deleted nodes
+        private final PagedLongArray components;
+
+        Snapshot(IdMap idMap, Long2IntOpenHashMap addedSlots, PagedLongArray ids, PagedLongArray components) {
+            this.idMap = idMap;
+            this.addedSlots = addedSlots;
+            this.ids = ids;
+            this.components = components;
+        }
+
+        @Override
+        public void compute(String label, String type, int iterations) {
+            throw new UnsupportedOperationException("A snapshot of resident components can not be computed");
+        }
+
+        @Override
+        public double getResult(long node) {
+            int slot = idMap != null ? idMap.toMappedNodeId(node) : -1;
+            if (slot == -1) slot = addedSlots.get(node);
+            return slot != -1 ? getResultAt(slot) : -1;
+        }
+
+        @Override
+        public double getResultAt(long node) {
+            return components.get(node);
+        }
+
+        @Override
+        public long toOriginalNodeId(long node) {
+            return ids.get(node);
+        }
+
+        @Override
+        public long numberOfNodes() {
+            return components.size();
+        }
+    }
+}
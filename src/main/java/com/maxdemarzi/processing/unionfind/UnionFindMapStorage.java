@@ -1,6 +1,6 @@
 package com.maxdemarzi.processing.unionfind;
 
-import com.maxdemarzi.processing.NodeCounter;
+import com.maxdemarzi.processing.graph.IdMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2LongMap;
 import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
@@ -13,7 +13,7 @@ import org.neo4j.graphdb.*;
 
 public class UnionFindMapStorage implements UnionFind {
     private final GraphDatabaseService db;
-    private final long nodes;
+    private IdMap idMap;
     private Long2IntOpenHashMap rankMap;
     private Long2LongMap rootMap;
 
@@ -21,7 +21,6 @@ public class UnionFindMapStorage implements UnionFind {
         this.db = db;
         this.rootMap = new Long2LongOpenHashMap();
         this.rankMap = new Long2IntOpenHashMap();
-        this.nodes = new NodeCounter().getNodeCount(db);
     }
 
     @Override
@@ -29,6 +28,7 @@ public class UnionFindMapStorage implements UnionFind {
         RelationshipType relationshipType = RelationshipType.withName(type);
 
         try ( Transaction tx = db.beginTx()) {
+            idMap = IdMap.load(db, label);
             ResourceIterator<Node> nodes = db.findNodes(DynamicLabel.label(label));
             while (nodes.hasNext()) {
                 long nodeId = nodes.next().getId();
@@ -99,8 +99,13 @@ public class UnionFindMapStorage implements UnionFind {
         return rootMap != null ? rootMap.getOrDefault(node, -1L) : -1;
     }
 
+    @Override
+    public long toOriginalNodeId(long node) {
+        return idMap.toOriginalNodeId((int) node);
+    }
+
     @Override
     public long numberOfNodes() {
-        return nodes;
-    };
+        return idMap != null ? idMap.nodeCount() : 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package com.maxdemarzi.processing.unionfind;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedAtomicIntegerArray;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.Utils.runRanges;
+
+/*
+    Lock-free union-find over the in-memory graph, every worker links the relationships of its own range of nodes.
+    Roots are linked with a compare-and-set of the higher root onto the lower one and finds halve the paths they walk,
+    so parents only ever decrease and every component ends up with its lowest node as the root, whatever the schedule.
+    With sampling (Afforest) the first few neighbours of every node are linked first, the largest component is estimated
+    from a sample of nodes, and only nodes outside of it link their remaining relationships. Once a giant component has
+    formed most relationships are never read. Skipping needs the relationships from both ends, so sampling loads the
+    incoming relationships as well.
+ */
+
+public class UnionFindParallel implements UnionFind {
+    // neighbours linked before sampling
+    public static final int NEIGHBOR_ROUNDS = 2;
+    public static final int SAMPLES = 1024;
+
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private final boolean sampling;
+    private Graph graph;
+    private PagedAtomicIntegerArray parents;
+
+    public UnionFindParallel(GraphDatabaseService db, ExecutorService pool) {
+        this(db, pool, true);
+    }
+
+    public UnionFindParallel(GraphDatabaseService db, ExecutorService pool, boolean sampling) {
+        this.db = db;
+        this.pool = pool;
+        this.sampling = sampling;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations);
+    }
+
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(sampling ? Direction.BOTH : Direction.OUTGOING));
+        union();
+    }
+
+    private void union() {
+        int nodeCount = graph.nodeCount();
+        Adjacency out = graph.adjacency(Direction.OUTGOING);
+
+        parents = new PagedAtomicIntegerArray(nodeCount);
+        runRanges(pool, nodeCount, (start, end) -> {
+            for (int node = start; node < end; node++) {
+                parents.set(node, node);
+            }
+        });
+
+        if (!sampling) {
+            runRanges(pool, nodeCount, (start, end) -> {
+                AdjacencyCursor cursor = out.newCursor();
+                for (int node = start; node < end; node++) {
+                    for (cursor.init(node); cursor.hasNext(); ) {
+                        link(node, cursor.nextTarget());
+                    }
+                }
+            });
+        } else {
+            for (int round = 0; round < NEIGHBOR_ROUNDS; round++) {
+                final int neighbor = round;
+                runRanges(pool, nodeCount, (start, end) -> {
+                    AdjacencyCursor cursor = out.newCursor();
+                    for (int node = start; node < end; node++) {
+                        cursor.init(node);
+                        for (int i = 0; i < neighbor && cursor.hasNext(); i++) {
+                            cursor.nextTarget();
+                        }
+                        if (cursor.hasNext()) link(node, cursor.nextTarget());
+                    }
+                });
+                compress();
+            }
+
+            int giant = largestComponent(nodeCount);
+            Adjacency in = graph.adjacency(Direction.INCOMING);
+            runRanges(pool, nodeCount, (start, end) -> {
+                AdjacencyCursor outCursor = out.newCursor();
+                AdjacencyCursor inCursor = in.newCursor();
+                for (int node = start; node < end; node++) {
+                    if (find(node) == giant) continue;
+                    // the first neighbours are linked already
+                    outCursor.init(node);
+                    for (int i = 0; i < NEIGHBOR_ROUNDS && outCursor.hasNext(); i++) {
+                        outCursor.nextTarget();
+                    }
+                    while (outCursor.hasNext()) {
+                        link(node, outCursor.nextTarget());
+                    }
+                    // relationships from the giant component are only seen from this end
+                    for (inCursor.init(node); inCursor.hasNext(); ) {
+                        link(node, inCursor.nextTarget());
+                    }
+                }
+            });
+        }
+
+        // flatten, so every node points directly at its root
+        compress();
+    }
+
+    // the most frequent root of a sample of nodes
+    private int largestComponent(int nodeCount) {
+        if (nodeCount == 0) return -1;
+        SplittableRandom random = new SplittableRandom(nodeCount);
+        Int2IntOpenHashMap counts = new Int2IntOpenHashMap();
+        int giant = -1;
+        int largest = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            int root = find(random.nextInt(nodeCount));
+            int count = counts.addTo(root, 1) + 1;
+            if (count > largest) {
+                largest = count;
+                giant = root;
+            }
+        }
+        return giant;
+    }
+
+    private void link(int x, int y) {
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y) return;
+            // the higher root goes below the lower one, a failed swap means another worker linked it meanwhile
+            if (x < y) {
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+            if (parents.compareAndSet(x, x, y)) return;
+        }
+    }
+
+    private int find(int x) {
+        while (true) {
+            int parent = parents.get(x);
+            int grandParent = parents.get(parent);
+            if (parent == grandParent) return parent;
+            parents.compareAndSet(x, parent, grandParent);
+            x = grandParent;
+        }
+    }
+
+    private void compress() {
+        runRanges(pool, graph.nodeCount(), (start, end) -> {
+            for (int node = start; node < end; node++) {
+                parents.set(node, find(node));
+            }
+        });
+    }
+
+    Graph graph() {
+        return graph;
+    }
+
+    // the dense id of the root of the node
+    int rootAt(int node) {
+        return parents.get(node);
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = parents != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(parents.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
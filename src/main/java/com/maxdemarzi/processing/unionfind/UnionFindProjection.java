@@ -0,0 +1,97 @@
+package com.maxdemarzi.processing.unionfind;
+
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.paged.PagedByteArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import java.util.concurrent.ExecutorService;
+
+/*
+    Weighted quick-union with path halving over the in-memory graph,
+    same as UnionFindMapStorage but with paged primitive arrays instead of maps.
+ */
+
+public class UnionFindProjection implements UnionFind {
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private Graph graph;
+    private PagedIntArray roots;
+
+    public UnionFindProjection(GraphDatabaseService db, ExecutorService pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    @Override
+    public void compute(String label, String type, int iterations) {
+        compute(new Projection(label, type, Direction.OUTGOING), iterations);
+    }
+
+    // only the outgoing relationships of the projection are loaded
+    public void compute(Projection projection, int iterations) {
+        graph = GraphCatalog.load(db, pool, projection.withDirection(Direction.OUTGOING));
+        int nodeCount = graph.nodeCount();
+        AdjacencyCursor cursor = graph.adjacency(Direction.OUTGOING).newCursor();
+
+        roots = new PagedIntArray(nodeCount);
+        PagedByteArray ranks = new PagedByteArray(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            roots.set(node, node);
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                int x = find(node);
+                int y = find(cursor.nextTarget());
+                if (x == y) continue;
+                if (ranks.get(x) > ranks.get(y)) {
+                    roots.set(y, x);
+                } else if (ranks.get(x) < ranks.get(y)) {
+                    roots.set(x, y);
+                } else {
+                    roots.set(y, x);
+                    ranks.addTo(x, (byte) 1);
+                }
+            }
+        }
+
+        // flatten, so every node points directly at its root
+        for (int node = 0; node < nodeCount; node++) {
+            roots.set(node, find(node));
+        }
+    }
+
+    private int find(int x) {
+        while (x != roots.get(x)) {
+            roots.set(x, roots.get(roots.get(x)));
+            x = roots.get(x);
+        }
+        return x;
+    }
+
+    @Override
+    public double getResult(long node) {
+        int index = roots != null ? graph.toMappedNodeId(node) : -1;
+        return index != -1 ? getResultAt(index) : -1;
+    }
+
+    @Override
+    public double getResultAt(long node) {
+        return graph.toOriginalNodeId(roots.get(node));
+    }
+
+    @Override
+    public long toOriginalNodeId(long node) {
+        return graph.toOriginalNodeId((int) node);
+    }
+
+    @Override
+    public long numberOfNodes() {
+        return graph != null ? graph.nodeCount() : 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.maxdemarzi.processing;
 
 import com.maxdemarzi.processing.centrality.Betweenness;
+import com.maxdemarzi.processing.centrality.BetweennessProjection;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,12 +10,15 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.assertEquals;
 
 public class BetweenessCentralityTest {
     private GraphDatabaseService db;
     private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
 
     @Before
     public void setUp() {
@@ -38,7 +42,7 @@ public class BetweenessCentralityTest {
 
     @Test
     public void shouldCalculateBetweennessCentrality() throws IOException {
-        String response = service.betweenness("Movie", "ACTED_IN", db);
+        String response = service.betweenness("Movie", "ACTED_IN", null, null, null, db);
         assertEquals("Betweenness Centrality for Movie and ACTED_IN Completed!", response);
     }
 
@@ -52,4 +56,13 @@ public class BetweenessCentralityTest {
             assertEquals(1992.4944081374413, centrality.getResult(id), 0.1D);
         }
     }
+
+    @Test
+    public void shouldCalculateBetweennessCentralityProjection() throws IOException {
+        BetweennessProjection centrality = new BetweennessProjection(db, pool);
+        centrality.compute("Person", "KNOWS", 0);
+
+        long id = (long) TestUtils.getPersonEntry("Tom Hanks", db).get("id");
+        assertEquals(1992.4944081374413, centrality.getResult(id), 0.1D);
+    }
 }
@@ -0,0 +1,296 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Graph;
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.GraphLoader;
+import com.maxdemarzi.processing.graph.NodeOrder;
+import com.maxdemarzi.processing.graph.Orientation;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.PropertyPredicate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.*;
+
+public class GraphCatalogTest {
+    private GraphDatabaseService db;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldReuseLoadedGraph() {
+        Graph graph = GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.BOTH);
+        assertSame(graph, GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.BOTH));
+        assertSame(graph, GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.OUTGOING));
+        assertNotSame(graph, GraphCatalog.load(db, pool, "Person", "ACTED_IN", Direction.BOTH));
+    }
+
+    @Test
+    public void shouldReloadGraphAfterRelationshipChange() {
+        Graph graph = GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.OUTGOING);
+        try ( Transaction tx = db.beginTx()) {
+            Node tom = db.findNode(Label.label("Person"), "name", "Tom Hanks");
+            Node keanu = db.findNode(Label.label("Person"), "name", "Keanu Reeves");
+            tom.createRelationshipTo(keanu, RelationshipType.withName("KNOWS"));
+            tx.success();
+        }
+
+        Graph reloaded = GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.OUTGOING);
+        assertNotSame(graph, reloaded);
+        assertEquals(graph.relationshipCount() + 1, reloaded.relationshipCount());
+    }
+
+    @Test
+    public void shouldKeepGraphAfterUnrelatedChange() {
+        Graph graph = GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.OUTGOING);
+        try ( Transaction tx = db.beginTx()) {
+            db.createNode(Label.label("Studio"));
+            tx.success();
+        }
+        assertSame(graph, GraphCatalog.load(db, pool, "Person", "KNOWS", Direction.OUTGOING));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedGraph() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        Projection actedIn = new Projection("Person", "ACTED_IN", Direction.OUTGOING);
+        GraphCatalog catalog = new GraphCatalog(loader.load(knows).memoryUsage() + 1);
+
+        Graph graph = catalog.get(knows, () -> loader.load(knows));
+        catalog.get(actedIn, () -> loader.load(actedIn));
+        assertNotSame(graph, catalog.get(knows, () -> loader.load(knows)));
+        assertTrue(catalog.memoryUsage() <= graph.memoryUsage() + 1);
+    }
+
+    @Test
+    public void shouldLoadSameNeighboursCompressed() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.BOTH);
+        Graph graph = loader.load(knows);
+        Graph compressed = loader.load(knows.withCompression(true));
+
+        assertEquals(graph.relationshipCount(), compressed.relationshipCount());
+        for (Direction direction : Arrays.asList(Direction.OUTGOING, Direction.INCOMING)) {
+            AdjacencyCursor cursor = graph.adjacency(direction).newCursor();
+            AdjacencyCursor compressedCursor = compressed.adjacency(direction).newCursor();
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                assertEquals(graph.degree(node, direction), compressed.degree(node, direction));
+                assertEquals(neighbours(cursor.init(node)), neighbours(compressedCursor.init(node)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadNeighboursByIndex() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        for (Graph graph : Arrays.asList(loader.load(knows), loader.load(knows.withCompression(true)))) {
+            Adjacency out = graph.adjacency(Direction.OUTGOING);
+            assertEquals(!graph.projection().isCompressed(), out.hasRandomAccess());
+            AdjacencyCursor cursor = out.newCursor();
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                cursor.init(node);
+                for (int index = 0; index < out.degree(node); index++) {
+                    assertEquals(cursor.nextTarget(), out.target(node, index));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepRelationshipsWhenReordering() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        Set<String> expected = relationships(loader.load(knows));
+        for (NodeOrder order : NodeOrder.values()) {
+            assertEquals(expected, relationships(loader.load(knows.withOrder(order))));
+            assertEquals(expected, relationships(loader.load(knows.withOrder(order).withCompression(true))));
+        }
+    }
+
+    @Test
+    public void shouldFoldRelationshipsViaLabel() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Graph knows = loader.load(new Projection("Person", "KNOWS", Direction.OUTGOING));
+        Projection actedIn = new Projection("Person", "ACTED_IN", Direction.OUTGOING).withVia("Movie", false);
+        Graph folded = loader.load(actedIn);
+        assertEquals(knows.relationshipCount(), folded.relationshipCount());
+        assertEquals(relationships(knows), relationships(folded));
+
+        Graph weighted = loader.load(actedIn.withVia("Movie", true).withCompression(true));
+        assertEquals(relationships(knows), relationships(weighted));
+        assertTrue(weighted.relationshipCount() < knows.relationshipCount());
+        assertEquals(knows.relationshipCount(), totalWeight(weighted, Direction.OUTGOING), 0.1D);
+    }
+
+    @Test
+    public void shouldLoadWeightsFromProperty() {
+        long weighted;
+        try (Transaction tx = db.beginTx()) {
+            weighted = (long) db.execute("MATCH (:Person {name:'Tom Hanks'})-[r:KNOWS]->() SET r.weight = 3 RETURN count(r) AS count")
+                    .next().get("count");
+            tx.success();
+        }
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.BOTH).withWeight("weight", 1);
+        for (Graph graph : Arrays.asList(loader.load(knows), loader.load(knows.withCompression(true)))) {
+            for (Direction direction : Arrays.asList(Direction.OUTGOING, Direction.INCOMING)) {
+                assertEquals(graph.relationshipCount() + 2 * weighted, totalWeight(graph, direction), 0.1D);
+            }
+        }
+    }
+
+    private static double totalWeight(Graph graph, Direction direction) {
+        double total = 0;
+        AdjacencyCursor cursor = graph.adjacency(direction).newCursor();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                cursor.nextTarget();
+                total += cursor.weight();
+            }
+        }
+        return total;
+    }
+
+    @Test
+    public void shouldLoadSeveralLabelsAndTypes() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Graph graph = loader.load(new Projection("Person|Movie", "KNOWS|ACTED_IN", Direction.OUTGOING));
+        assertEquals(count("MATCH (n) WHERE n:Person OR n:Movie RETURN count(n) AS count"), graph.nodeCount());
+        assertEquals(count("MATCH ()-[r:KNOWS|ACTED_IN]->() RETURN count(r) AS count"), graph.relationshipCount());
+    }
+
+    @Test
+    public void shouldOrientRelationships() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        Set<String> natural = relationships(loader.load(knows));
+        Set<String> reversed = new HashSet<>();
+        for (String relationship : relationships(loader.load(knows.withOrientation(Orientation.REVERSE)))) {
+            String[] nodes = relationship.split("->");
+            reversed.add(nodes[1] + "->" + nodes[0]);
+        }
+        assertEquals(natural, reversed);
+        Graph undirected = loader.load(knows.withOrientation(Orientation.UNDIRECTED));
+        assertEquals(2 * loader.load(knows).relationshipCount(), undirected.relationshipCount());
+    }
+
+    @Test
+    public void shouldFilterNodesAndRelationships() {
+        try (Transaction tx = db.beginTx()) {
+            db.execute("MATCH ()-[r:KNOWS]->() WHERE id(r) % 2 = 0 SET r.even = true");
+            tx.success();
+        }
+        GraphLoader loader = new GraphLoader(db, pool);
+        Projection knows = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        Graph young = loader.load(knows.withFilters(PropertyPredicate.parseAll("born>1960"), PropertyPredicate.parseAll(null)));
+        assertEquals(count("MATCH (n:Person) WHERE n.born > 1960 RETURN count(n) AS count"), young.nodeCount());
+        assertEquals(count("MATCH (a:Person)-[r:KNOWS]->(b:Person) WHERE a.born > 1960 AND b.born > 1960 RETURN count(r) AS count"),
+                young.relationshipCount());
+        Graph even = loader.load(knows.withFilters(PropertyPredicate.parseAll(""), PropertyPredicate.parseAll("even=true")));
+        assertEquals(count("MATCH ()-[r:KNOWS]->() WHERE r.even RETURN count(r) AS count"), even.relationshipCount());
+    }
+
+    @Test
+    public void shouldReloadGraphAfterFilteredPropertyChange() {
+        Projection young = new Projection("Person", "KNOWS", Direction.OUTGOING)
+                .withFilters(PropertyPredicate.parseAll("born>1960"), PropertyPredicate.parseAll(null));
+        Graph graph = GraphCatalog.load(db, pool, young);
+        try (Transaction tx = db.beginTx()) {
+            db.execute("MATCH (n:Person {name:'Keanu Reeves'}) SET n.born = 1900");
+            tx.success();
+        }
+        assertEquals(graph.nodeCount() - 1, GraphCatalog.load(db, pool, young).nodeCount());
+    }
+
+    @Test
+    public void shouldLoadSameGraphScanningAndExpanding() {
+        try (Transaction tx = db.beginTx()) {
+            db.execute("MATCH (:Person {name:'Tom Hanks'})-[r:KNOWS]->() SET r.weight = 3");
+            tx.success();
+        }
+        GraphLoader expand = new GraphLoader(db, pool, GraphLoader.Strategy.EXPAND);
+        GraphLoader scan = new GraphLoader(db, pool, GraphLoader.Strategy.SCAN);
+        Projection knows = new Projection("Person", "KNOWS", Direction.BOTH);
+        for (Projection projection : Arrays.asList(knows, knows.withOrientation(Orientation.REVERSE),
+                knows.withOrientation(Orientation.UNDIRECTED).withCompression(true), knows.withWeight("weight", 1),
+                knows.withFilters(PropertyPredicate.parseAll("born>1960"), PropertyPredicate.parseAll("weight=3")),
+                new Projection("Person|Movie", "KNOWS|ACTED_IN", Direction.BOTH).withOrder(NodeOrder.DEGREE))) {
+            Graph expanded = expand.load(projection);
+            Graph scanned = scan.load(projection);
+            assertEquals(expanded.relationshipCount(), scanned.relationshipCount());
+            assertEquals(relationships(expanded), relationships(scanned));
+            for (Direction direction : Arrays.asList(Direction.OUTGOING, Direction.INCOMING)) {
+                assertEquals(totalWeight(expanded, direction), totalWeight(scanned, direction), 0.1D);
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanWhenLabelsCoverTheStore() {
+        GraphLoader loader = new GraphLoader(db, pool);
+        assertEquals(GraphLoader.Strategy.SCAN, loader.strategy(new Projection("Person|Movie", "KNOWS", Direction.OUTGOING)));
+        assertEquals(GraphLoader.Strategy.EXPAND, loader.strategy(new Projection("Studio", "KNOWS", Direction.OUTGOING)));
+    }
+
+    private long count(String query) {
+        try (Transaction tx = db.beginTx()) {
+            return (long) db.execute(query).next().get("count");
+        }
+    }
+
+    // relationships by their original node ids
+    private static Set<String> relationships(Graph graph) {
+        Set<String> relationships = new HashSet<>();
+        AdjacencyCursor cursor = graph.adjacency(Direction.OUTGOING).newCursor();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (cursor.init(node); cursor.hasNext(); ) {
+                relationships.add(graph.toOriginalNodeId(node) + "->" + graph.toOriginalNodeId(cursor.nextTarget()));
+            }
+        }
+        return relationships;
+    }
+
+    private static Set<Integer> neighbours(AdjacencyCursor cursor) {
+        Set<Integer> neighbours = new HashSet<>();
+        while (cursor.hasNext()) {
+            neighbours.add(cursor.nextTarget());
+        }
+        return neighbours;
+    }
+}
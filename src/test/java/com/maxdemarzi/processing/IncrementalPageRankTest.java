@@ -0,0 +1,128 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.pagerank.PageRankIncremental;
+import com.maxdemarzi.processing.pagerank.PageRankProjection;
+import com.maxdemarzi.processing.pagerank.Precision;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalPageRankTest {
+    private GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldUpdateRanksAfterNewRelationships() {
+        Projection projection = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        PageRankIncremental pageRank = PageRankIncremental.forProjection(db, pool, Precision.DOUBLE, projection);
+        pageRank.compute(projection, 200, 0.000001);
+
+        try ( Transaction tx = db.beginTx()) {
+            Node tom = db.findNode(Label.label("Person"), "name", "Tom Hanks");
+            Node keanu = db.findNode(Label.label("Person"), "name", "Keanu Reeves");
+            Node newcomer = db.createNode(Label.label("Person"));
+            tom.createRelationshipTo(keanu, RelationshipType.withName("KNOWS"));
+            newcomer.createRelationshipTo(keanu, RelationshipType.withName("KNOWS"));
+            tx.success();
+        }
+        pageRank.compute(projection, 200, 0.000001);
+        assertTrue(pageRank.numberOfNodes() > 0);
+
+        PageRankProjection full = new PageRankProjection(db, pool);
+        full.compute(projection, 200, 0.000001);
+        for (long node = 0; node < full.numberOfNodes(); node++) {
+            long id = full.toOriginalNodeId(node);
+            assertEquals(full.getResult(id), pageRank.getResult(id), 0.0001D);
+        }
+
+        pageRank.compute(projection, 200, 0.000001);
+        assertEquals(0, pageRank.numberOfNodes());
+    }
+
+    @Test
+    public void shouldUpdateRanksAfterDeletedRelationships() {
+        Projection projection = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        PageRankIncremental pageRank = PageRankIncremental.forProjection(db, pool, Precision.DOUBLE, projection);
+        pageRank.compute(projection, 200, 0.000001);
+
+        try ( Transaction tx = db.beginTx()) {
+            Node tom = db.findNode(Label.label("Person"), "name", "Tom Hanks");
+            for (Relationship relationship : tom.getRelationships(RelationshipType.withName("KNOWS"), Direction.OUTGOING)) {
+                relationship.delete();
+                break;
+            }
+            tx.success();
+        }
+        pageRank.compute(projection, 200, 0.000001);
+
+        PageRankProjection full = new PageRankProjection(db, pool);
+        full.compute(projection, 200, 0.000001);
+        for (long node = 0; node < full.numberOfNodes(); node++) {
+            long id = full.toOriginalNodeId(node);
+            assertEquals(full.getResult(id), pageRank.getResult(id), 0.0001D);
+        }
+    }
+
+    @Test
+    public void shouldReportUpdatedNodes() {
+        String response = service.pageRank("Person", "KNOWS", 100, false, "natural", null, false, null, 1, "natural", null, null, "double", 0.0001, "incremental", 10, db);
+        assertTrue(response.startsWith("PageRank for Person and KNOWS Completed! Iterations: "));
+        response = service.pageRank("Person", "KNOWS", 100, false, "natural", null, false, null, 1, "natural", null, null, "double", 0.0001, "incremental", 10, db);
+        assertTrue(response.endsWith(" Updated: 0"));
+    }
+
+    @Test
+    public void shouldDropResidentRanksWithTheCatalog() {
+        Projection projection = new Projection("Person", "KNOWS", Direction.OUTGOING);
+        PageRankIncremental pageRank = PageRankIncremental.forProjection(db, pool, Precision.DOUBLE, projection);
+        assertSame(pageRank, PageRankIncremental.forProjection(db, pool, Precision.DOUBLE, projection));
+        assertTrue(service.catalog(db).contains("resident: PageRankIncremental"));
+
+        PageRankIncremental single = PageRankIncremental.forProjection(db, pool, Precision.FLOAT, projection);
+        assertNotSame(pageRank, single);
+        assertEquals(1, service.catalog(db).split("resident: PageRankIncremental", -1).length - 1);
+
+        service.clearCatalog(db);
+        assertFalse(service.catalog(db).contains("resident"));
+        assertNotSame(single, PageRankIncremental.forProjection(db, pool, Precision.FLOAT, projection));
+    }
+}
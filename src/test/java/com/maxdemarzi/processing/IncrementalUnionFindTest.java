@@ -0,0 +1,213 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.unionfind.UnionFind;
+import com.maxdemarzi.processing.unionfind.UnionFindIncremental;
+import com.maxdemarzi.processing.unionfind.UnionFindParallel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalUnionFindTest {
+    private static final Label MEMBER = Label.label("Member");
+    private static final RelationshipType LINKS = RelationshipType.withName("LINKS");
+    private GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+    // a -> b -> c and d -> e
+    private long a, b, c, d, e;
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            Node[] nodes = new Node[5];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = db.createNode(MEMBER);
+            }
+            nodes[0].createRelationshipTo(nodes[1], LINKS);
+            nodes[1].createRelationshipTo(nodes[2], LINKS);
+            nodes[3].createRelationshipTo(nodes[4], LINKS);
+            a = nodes[0].getId();
+            b = nodes[1].getId();
+            c = nodes[2].getId();
+            d = nodes[3].getId();
+            e = nodes[4].getId();
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldMergeComponentsOnNewRelationships() {
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS", Direction.OUTGOING));
+        assertTrue(unionFind.sameComponent(a, c));
+        assertFalse(unionFind.sameComponent(a, e));
+
+        long newcomer;
+        try ( Transaction tx = db.beginTx()) {
+            Node node = db.createNode(MEMBER);
+            db.getNodeById(c).createRelationshipTo(db.getNodeById(d), LINKS);
+            node.createRelationshipTo(db.getNodeById(e), LINKS);
+            newcomer = node.getId();
+            tx.success();
+        }
+        // the lookups apply the created relationships themselves
+        assertTrue(unionFind.sameComponent(a, e));
+        assertEquals(unionFind.component(a), unionFind.component(newcomer));
+        unionFind.refresh();
+        assertEquals(0, unionFind.getRelinked());
+    }
+
+    @Test
+    public void shouldSplitComponentsOnDeletedRelationships() {
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS", Direction.OUTGOING));
+        assertTrue(unionFind.sameComponent(a, c));
+
+        try ( Transaction tx = db.beginTx()) {
+            for (Relationship relationship : db.getNodeById(b).getRelationships(LINKS, Direction.OUTGOING)) {
+                relationship.delete();
+            }
+            tx.success();
+        }
+        unionFind.refresh();
+        // only the component of a, b and c is linked again
+        assertEquals(3, unionFind.getRelinked());
+        assertTrue(unionFind.sameComponent(a, b));
+        assertFalse(unionFind.sameComponent(b, c));
+        assertTrue(unionFind.sameComponent(d, e));
+
+        UnionFindParallel full = new UnionFindParallel(db, pool);
+        full.compute(new Projection("Member", "LINKS", Direction.OUTGOING), 0);
+        for (long node = 0; node < full.numberOfNodes(); node++) {
+            for (long other = 0; other < full.numberOfNodes(); other++) {
+                long id = full.toOriginalNodeId(node);
+                long otherId = full.toOriginalNodeId(other);
+                assertEquals(full.getResult(id) == full.getResult(otherId), unionFind.sameComponent(id, otherId));
+            }
+        }
+    }
+
+    @Test
+    public void shouldComputeAgainBeyondMaxRelinked() {
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS", Direction.OUTGOING))
+                .withMaxRelinked(2);
+        unionFind.refresh();
+
+        try ( Transaction tx = db.beginTx()) {
+            for (Relationship relationship : db.getNodeById(b).getRelationships(LINKS, Direction.OUTGOING)) {
+                relationship.delete();
+            }
+            db.getNodeById(c).createRelationshipTo(db.getNodeById(d), LINKS);
+            tx.success();
+        }
+        assertTrue(unionFind.sameComponent(c, e));
+        unionFind.refresh();
+        assertEquals(-1, unionFind.getRelinked());
+        assertTrue(unionFind.sameComponent(a, b));
+        assertFalse(unionFind.sameComponent(b, c));
+        assertTrue(unionFind.sameComponent(c, e));
+    }
+
+    @Test
+    public void shouldWriteBackWithoutDeletedNodes() {
+        service.unionFind("Member", "LINKS", 0, false, "natural", null, false, null, null, "incremental", true, db);
+        try ( Transaction tx = db.beginTx()) {
+            Node node = db.getNodeById(c);
+            for (Relationship relationship : node.getRelationships()) {
+                relationship.delete();
+            }
+            node.delete();
+            db.getNodeById(b).createRelationshipTo(db.getNodeById(d), LINKS);
+            tx.success();
+        }
+        service.unionFind("Member", "LINKS", 0, false, "natural", null, false, null, null, "incremental", true, db);
+
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS", Direction.OUTGOING));
+        assertEquals(-1, unionFind.component(c));
+        assertEquals(-1, unionFind.getResult(c), 0);
+        try ( Transaction tx = db.beginTx()) {
+            Object component = db.getNodeById(a).getProperty("unionfind");
+            assertEquals(component, db.getNodeById(d).getProperty("unionfind"));
+            assertEquals(component, db.getNodeById(e).getProperty("unionfind"));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldKeepSnapshotsApartFromLaterChanges() {
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS", Direction.OUTGOING));
+        unionFind.refresh();
+        UnionFind snapshot = unionFind.snapshot();
+        assertEquals(5, snapshot.numberOfNodes());
+
+        try ( Transaction tx = db.beginTx()) {
+            db.getNodeById(c).createRelationshipTo(db.getNodeById(d), LINKS);
+            db.createNode(MEMBER).createRelationshipTo(db.getNodeById(e), LINKS);
+            tx.success();
+        }
+        assertEquals(unionFind.component(a), unionFind.component(e));
+        assertEquals(5, snapshot.numberOfNodes());
+        assertEquals(snapshot.getResult(d), snapshot.getResult(e), 0);
+        assertTrue(snapshot.getResult(a) != snapshot.getResult(e));
+    }
+
+    @Test
+    public void shouldAnswerComponentQueries() {
+        assertEquals("{\"same\":true}", service.sameComponent("Member", "LINKS", a, c, null, null, null, db));
+        assertEquals("{\"same\":false}", service.sameComponent("Member", "LINKS", c, d, null, null, null, db));
+        String component = service.component("Member", "LINKS", e, null, null, null, db);
+        assertTrue(component.startsWith("{\"id\":" + e + ",\"component\":"));
+        assertEquals("{\"id\":-5,\"component\":-1}", service.component("Member", "LINKS", -5, null, null, null, db));
+    }
+
+    @Test
+    public void shouldDropResidentComponentsWithTheCatalog() {
+        Projection projection = new Projection("Member", "LINKS", Direction.OUTGOING);
+        UnionFindIncremental unionFind = UnionFindIncremental.forProjection(db, pool, projection);
+        assertSame(unionFind, UnionFindIncremental.forProjection(db, pool, projection));
+        assertTrue(service.catalog(db).contains("resident: UnionFindIncremental"));
+
+        service.clearCatalog(db);
+        assertFalse(service.catalog(db).contains("resident"));
+        assertNotSame(unionFind, UnionFindIncremental.forProjection(db, pool, projection));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedComponents() {
+        Projection first = new Projection("Member", "LINKS", Direction.BOTH);
+        UnionFindIncremental.forProjection(db, pool, first);
+        for (int i = 0; i < GraphCatalog.MAX_RESIDENTS; i++) {
+            UnionFindIncremental.forProjection(db, pool, new Projection("Member", "LINKS_" + i, Direction.BOTH));
+        }
+        assertNull(GraphCatalog.forDatabase(db).resident(UnionFindIncremental.class, first));
+    }
+}
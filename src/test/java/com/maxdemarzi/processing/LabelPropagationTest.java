@@ -1,22 +1,30 @@
 package com.maxdemarzi.processing;
 
+import com.maxdemarzi.processing.graph.Projection;
 import com.maxdemarzi.processing.labelpropagation.LabelPropagation;
+import com.maxdemarzi.processing.labelpropagation.LabelPropagationFrequency;
 //import com.maxdemarzi.processing.labelpropagation.LabelPropagationArrayStorageParallelSPI;
 import com.maxdemarzi.processing.labelpropagation.LabelPropagationMapStorage;
+import com.maxdemarzi.processing.labelpropagation.LabelPropagationProjection;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import javax.ws.rs.WebApplicationException;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class LabelPropagationTest {
     public static final double EXPECTED = 1.0;
@@ -24,6 +32,9 @@ public class LabelPropagationTest {
     private static Service service;
     public static final int CPUS = Runtime.getRuntime().availableProcessors();
     static ExecutorService pool = Utils.createPool(CPUS, CPUS*25);
+    private Node[] left;
+    private Node[] right;
+    private Node between;
 
     @Before
     public void setUp() {
@@ -40,6 +51,20 @@ public class LabelPropagationTest {
         }
     }
 
+    // two cliques of five joined by a single relationship, plus a node near both of them
+    private void createCliques() {
+        Node[][] cliques = TestUtils.createCliques(db, 2, 5);
+        left = cliques[0];
+        right = cliques[1];
+        try (Transaction tx = db.beginTx()) {
+            left[0].createRelationshipTo(right[0], TestUtils.NEAR);
+            between = db.createNode(TestUtils.MEMBER);
+            between.createRelationshipTo(left[1], TestUtils.NEAR).setProperty("weight", 1);
+            between.createRelationshipTo(right[1], TestUtils.NEAR).setProperty("weight", 5);
+            tx.success();
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
         db.shutdown();
@@ -47,7 +72,7 @@ public class LabelPropagationTest {
 
     @Test
     public void shouldPropagateLabels() throws IOException {
-        String response = service.labelPropagation("Person", "KNOWS", 20, db);
+        String response = service.labelPropagation("Person", "KNOWS", 20, null, false, null, null, 0, null, 1, "min", 42, db);
         assertEquals("LabelPropagation for Person and KNOWS Completed!", response);
     }
 
@@ -59,7 +84,78 @@ public class LabelPropagationTest {
         assertEquals(EXPECTED, labelPropagation.getResult(id),0.1D);
     }
 
+    @Test
+    public void shouldGetPropagateLabelsProjection() throws IOException {
+        LabelPropagation labelPropagation = new LabelPropagationProjection(db, pool);
+        labelPropagation.compute("Person", "KNOWS", 20);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(EXPECTED, labelPropagation.getResult(id),0.1D);
+    }
+
+    @Test
+    public void shouldStopWhenNoLabelChanges() throws IOException {
+        LabelPropagationProjection labelPropagation = new LabelPropagationProjection(db, pool);
+        labelPropagation.compute(new Projection("Person", "KNOWS", Direction.BOTH), 20, 0);
+        assertTrue(labelPropagation.getIterations() < 20);
+        assertEquals(0, labelPropagation.getResidual(), 0);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(EXPECTED, labelPropagation.getResult(id),0.1D);
+    }
+
+    @Test
+    public void shouldPropagateMostFrequentLabels() throws IOException {
+        createCliques();
+        String response = service.labelPropagation("Member", "NEAR", 20, null, false, null, null, 0, null, 1, "frequency", 42, db);
+        assertEquals("LabelPropagation for Member and NEAR Completed!", response);
 
+        LabelPropagationFrequency labelPropagation = new LabelPropagationFrequency(db, pool);
+        labelPropagation.compute(new Projection("Member", "NEAR", Direction.BOTH), 20, 0);
+        assertTrue(labelPropagation.getIterations() < 20);
+        assertEquals(0, labelPropagation.getResidual(), 0);
+        for (int i = 1; i < 5; i++) {
+            assertEquals(labelPropagation.getResult(left[0].getId()), labelPropagation.getResult(left[i].getId()), 0);
+            assertEquals(labelPropagation.getResult(right[0].getId()), labelPropagation.getResult(right[i].getId()), 0);
+        }
+        assertTrue(labelPropagation.getResult(left[0].getId()) != labelPropagation.getResult(right[0].getId()));
+        assertEquals(-1, labelPropagation.getResult(-1), 0);
+    }
+
+    @Test
+    public void shouldFollowHeavierRelationships() throws IOException {
+        createCliques();
+        LabelPropagationFrequency labelPropagation = new LabelPropagationFrequency(db, pool);
+        labelPropagation.compute(new Projection("Member", "NEAR", Direction.BOTH).withWeight("weight", 1), 20, 0);
+        assertEquals(labelPropagation.getResult(right[1].getId()), labelPropagation.getResult(between.getId()), 0);
+        assertTrue(labelPropagation.getResult(left[1].getId()) != labelPropagation.getResult(between.getId()));
+    }
+
+    @Test
+    public void shouldRunAtMostTheIterationsInBothModes() throws IOException {
+        LabelPropagationProjection min = new LabelPropagationProjection(db, pool);
+        min.compute(new Projection("Person", "KNOWS", Direction.BOTH), 1, 0);
+        assertEquals(1, min.getIterations());
+        LabelPropagationFrequency frequency = new LabelPropagationFrequency(db, pool);
+        frequency.compute(new Projection("Person", "KNOWS", Direction.BOTH), 1, 0);
+        assertEquals(1, frequency.getIterations());
+    }
+
+    @Test
+    public void shouldStopBelowTheFractionOfChangedLabels() throws IOException {
+        LabelPropagationFrequency labelPropagation = new LabelPropagationFrequency(db, pool);
+        labelPropagation.compute(new Projection("Person", "KNOWS", Direction.BOTH), 20, 0.5);
+        assertTrue(labelPropagation.getResidual() < 0.5);
+        assertTrue(labelPropagation.getIterations() > 0);
+    }
+
+    @Test
+    public void shouldRejectUnknownMode() throws IOException {
+        try {
+            service.labelPropagation("Person", "KNOWS", 20, null, false, null, null, 0, null, 1, "frequent", 42, db);
+            fail("mode frequent was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
 
     private Map<String, Object> getEntry(String name) {
         try (Result result = db.execute(TestObjects.PERSON_RESULT_QUERY, Collections.singletonMap("name", name))) {
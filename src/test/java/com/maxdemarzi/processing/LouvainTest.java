@@ -0,0 +1,100 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.louvain.LouvainProjection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LouvainTest {
+    private GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+    private Node[][] cliques;
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    // a ring of six cliques of five, each clique linked to the next by a single relationship
+    private void createCliques() {
+        cliques = TestUtils.createCliques(db, 6, 5);
+        try (Transaction tx = db.beginTx()) {
+            for (int i = 0; i < cliques.length; i++) {
+                cliques[i][0].createRelationshipTo(cliques[(i + 1) % cliques.length][1], TestUtils.NEAR);
+            }
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldWriteCommunitiesOfEveryLevel() throws IOException {
+        createCliques();
+        String response = service.louvain("Member", "NEAR", 10, 10, 0.0001, true, false, "natural", null, false, null, 1, null, null, db);
+        assertTrue(response.startsWith("Louvain for Member and NEAR Completed! Modularities: ["));
+
+        try (Transaction tx = db.beginTx()) {
+            Node node = cliques[2][3];
+            assertEquals(node.getProperty("louvain"), node.getProperty("louvain_1"));
+            assertEquals(node.getProperty("louvain"), cliques[2][4].getProperty("louvain"));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldFindCliques() throws IOException {
+        createCliques();
+        LouvainProjection louvain = new LouvainProjection(db, pool);
+        louvain.compute(new Projection("Member", "NEAR", Direction.OUTGOING), 10, 10, 0.0001);
+        for (int i = 0; i < cliques.length; i++) {
+            for (Node node : cliques[i]) {
+                assertEquals(louvain.getResult(cliques[i][0].getId()), louvain.getResult(node.getId()), 0);
+            }
+            assertTrue(louvain.getResult(cliques[i][0].getId()) != louvain.getResult(cliques[(i + 1) % cliques.length][0].getId()));
+        }
+        // six cliques of 10 relationships each with 22 of the 132 degrees: 6 * (10/66 - (22/132)^2)
+        double[] modularities = louvain.getModularities();
+        assertEquals(louvain.getLevelCount(), modularities.length);
+        assertEquals(0.742, modularities[modularities.length - 1], 0.001);
+        assertEquals(-1, louvain.getResult(-1), 0);
+    }
+
+    @Test
+    public void shouldNotLoseModularityBetweenLevels() throws IOException {
+        populateDb(db);
+        LouvainProjection louvain = new LouvainProjection(db, pool);
+        louvain.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 10, 10, 0);
+        double[] modularities = louvain.getModularities();
+        assertTrue(modularities[0] > 0);
+        for (int level = 1; level < modularities.length; level++) {
+            assertTrue(modularities[level] >= modularities[level - 1]);
+        }
+    }
+}
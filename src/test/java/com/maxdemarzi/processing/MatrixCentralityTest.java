@@ -0,0 +1,175 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.centrality.Centrality;
+import com.maxdemarzi.processing.centrality.EigenvectorCentrality;
+import com.maxdemarzi.processing.centrality.HitsCentrality;
+import com.maxdemarzi.processing.centrality.KatzCentrality;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.graph.SparseMatrixVector;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import javax.ws.rs.WebApplicationException;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import static com.maxdemarzi.processing.TestUtils.getMovieEntry;
+import static com.maxdemarzi.processing.TestUtils.getPersonEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MatrixCentralityTest {
+    private static GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+
+    @BeforeClass
+    public static void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private static void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldCalculateEigenvectorCentrality() throws IOException {
+        String response = service.eigenvector("Person", "KNOWS", 20, 0, "pull", null, false, null, 1, "natural", null, null, db);
+        assertEquals("Eigenvector Centrality for Person and KNOWS Completed!", response);
+
+        EigenvectorCentrality centrality = new EigenvectorCentrality(db, pool);
+        centrality.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 100, 1e-9);
+        assertTrue(centrality.getIterations() < 100);
+        double norm = 0;
+        for (long node = 0; node < centrality.numberOfNodes(); node++) {
+            norm += centrality.getResultAt(node) * centrality.getResultAt(node);
+        }
+        assertEquals(1, norm, 1e-9);
+    }
+
+    @Test
+    public void shouldMultiplySameWithEveryKernel() throws IOException {
+        EigenvectorCentrality pull = new EigenvectorCentrality(db, pool);
+        pull.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20, 0);
+        for (SparseMatrixVector.Kernel kernel : new SparseMatrixVector.Kernel[]{SparseMatrixVector.Kernel.PUSH, SparseMatrixVector.Kernel.BLOCKED}) {
+            EigenvectorCentrality other = new EigenvectorCentrality(db, pool, kernel);
+            other.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20, 0);
+            for (long node = 0; node < other.numberOfNodes(); node++) {
+                long id = other.toOriginalNodeId(node);
+                assertEquals(pull.getResult(id), other.getResult(id), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void shouldCalculateHubsAndAuthorities() throws IOException {
+        String response = service.hits("Person|Movie", "ACTED_IN", 20, 0, "blocked", null, false, null, 1, "natural", null, null, db);
+        assertEquals("HITS Centrality for Person|Movie and ACTED_IN Completed!", response);
+
+        HitsCentrality centrality = new HitsCentrality(db, pool);
+        centrality.compute(new Projection("Person|Movie", "ACTED_IN", Direction.OUTGOING), 20, 0);
+        Centrality hubs = centrality.hubs();
+        long movie = (long) getMovieEntry("The Matrix", db).get("id");
+        long actor = (long) getPersonEntry("Keanu Reeves", db).get("id");
+        // movies are only pointed to, actors only point
+        assertTrue(centrality.getResult(movie) > 0);
+        assertEquals(0, hubs.getResult(movie), 0);
+        assertTrue(hubs.getResult(actor) > 0);
+        assertEquals(0, centrality.getResult(actor), 0);
+    }
+
+    @Test
+    public void shouldCalculateKatzCentrality() throws IOException {
+        String response = service.katz("Person", "KNOWS", 20, 0.0001, 0.01, 1, "push", null, false, null, 1, "natural", null, null, db);
+        assertTrue(response.startsWith("Katz Centrality for Person and KNOWS Completed! Iterations: "));
+
+        KatzCentrality centrality = new KatzCentrality(db, pool, 0.01, 1);
+        centrality.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 50, 1e-12);
+        for (long node = 0; node < centrality.numberOfNodes(); node++) {
+            assertTrue(centrality.getResultAt(node) >= 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDivergingKatzCentrality() throws IOException {
+        KatzCentrality centrality = new KatzCentrality(db, pool, 1e200, 1);
+        centrality.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectGrowingKatzCentrality() throws IOException {
+        // co-actors know each other in groups of five and more, so 0.5 is far above 1 over the largest eigenvalue
+        KatzCentrality centrality = new KatzCentrality(db, pool, 0.5, 1);
+        centrality.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20, 0);
+    }
+
+    @Test
+    public void shouldConvergeOnTreesThatFanIn() throws IOException {
+        // 20 branches feed the root and 20 leaves feed every branch, the change grows from 2 to 4 before it is 0
+        Node root;
+        Node branch;
+        try ( Transaction tx = db.beginTx()) {
+            root = db.createNode(Label.label("Tree"));
+            branch = root;
+            for (int i = 0; i < 20; i++) {
+                branch = db.createNode(Label.label("Tree"));
+                branch.createRelationshipTo(root, RelationshipType.withName("FEEDS"));
+                for (int j = 0; j < 20; j++) {
+                    db.createNode(Label.label("Tree")).createRelationshipTo(branch, RelationshipType.withName("FEEDS"));
+                }
+            }
+            tx.success();
+        }
+        String response = service.katz("Tree", "FEEDS", 20, 0.0001, 0.1, 1, "pull", null, false, null, 1, "natural", null, null, db);
+        assertTrue(response.startsWith("Katz Centrality for Tree and FEEDS Completed! Iterations: 3 "));
+
+        KatzCentrality centrality = new KatzCentrality(db, pool, 0.1, 1);
+        centrality.compute(new Projection("Tree", "FEEDS", Direction.OUTGOING), 20, 0);
+        assertEquals(7, centrality.getResult(root.getId()), 1e-9);
+        assertEquals(3, centrality.getResult(branch.getId()), 1e-9);
+    }
+
+    @Test
+    public void shouldAnswerBadRequestForUnknownKernels() throws IOException {
+        try {
+            service.eigenvector("Person", "KNOWS", 20, 0, "pulled", null, false, null, 1, "natural", null, null, db);
+            fail("kernel pulled was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
+
+    @Test
+    public void shouldAnswerBadRequestForKatzParameters() throws IOException {
+        double[][] parameters = {{0, 1}, {0.1, 0}, {0.1, -1}, {0.5, 1}};
+        for (double[] alphaAndBeta : parameters) {
+            try {
+                service.katz("Person", "KNOWS", 20, 0, alphaAndBeta[0], alphaAndBeta[1], "pull", null, false, null, 1, "natural", null, null, db);
+                fail("alpha " + alphaAndBeta[0] + " and beta " + alphaAndBeta[1] + " were accepted");
+            } catch (WebApplicationException e) {
+                assertEquals(400, e.getResponse().getStatus());
+            }
+        }
+    }
+}
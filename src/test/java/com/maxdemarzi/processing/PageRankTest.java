@@ -2,27 +2,44 @@ package com.maxdemarzi.processing;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 
+import com.maxdemarzi.processing.graph.NodeOrder;
+import com.maxdemarzi.processing.graph.Projection;
 import com.maxdemarzi.processing.pagerank.PageRank;
 import com.maxdemarzi.processing.pagerank.PageRankArrayStorage;
+import com.maxdemarzi.processing.pagerank.PageRankArrayStorageParallelSPI;
 import com.maxdemarzi.processing.pagerank.PageRankArrayStorageSPI;
+import com.maxdemarzi.processing.pagerank.PageRankDelta;
+import com.maxdemarzi.processing.pagerank.PageRankGaussSeidel;
 import com.maxdemarzi.processing.pagerank.PageRankMapStorage;
+import com.maxdemarzi.processing.pagerank.PageRankMonteCarlo;
+import com.maxdemarzi.processing.pagerank.PageRankProjection;
+import com.maxdemarzi.processing.pagerank.PageRankPush;
+import com.maxdemarzi.processing.pagerank.Precision;
 import org.junit.Test;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.junit.*;
 
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import javax.ws.rs.WebApplicationException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class PageRankTest {
     public static final double EXPECTED = 4.778829041015646;
     private static GraphDatabaseService db;
     private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
 
     @BeforeClass
     public static void setUp() {
@@ -46,10 +63,19 @@ public class PageRankTest {
 
     @Test
     public void shouldGetPageRank() throws IOException {
-        String response = service.pageRank("Person", "KNOWS", 20, db);
+        String response = service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "pull", 10, db);
         assertEquals("PageRank for Person and KNOWS Completed!", response);
     }
 
+    @Test
+    public void shouldWriteBackPageRank() throws IOException {
+        service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "pull", 10, db);
+        assertEquals(EXPECTED, (double) getEntry("Tom Hanks").get("pagerank"), 0.1D);
+        try (Result result = db.execute("MATCH (m:Movie) WHERE exists(m.pagerank) RETURN count(*) AS movies")) {
+            assertEquals(0L, result.next().get("movies"));
+        }
+    }
+
     @Test
     public void shouldGetPageRankArrayStorageSPI() throws IOException {
         PageRank pageRank = new PageRankArrayStorageSPI(db);
@@ -78,12 +104,204 @@ public class PageRankTest {
         // dump(pageRank);
     }
 
+    @Test
+    public void shouldGetPageRankProjection() throws IOException {
+        PageRank pageRank = new PageRankProjection(db, pool);
+        pageRank.compute("Person", "KNOWS", 20);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(EXPECTED, pageRank.getResult(id),0.1D);
+    }
+
+    @Test
+    public void shouldPullSameRanksAsPush() throws IOException {
+        PageRank push = new PageRankArrayStorageParallelSPI(db, pool);
+        push.compute("Person", "KNOWS", 20);
+        PageRankProjection pull = new PageRankProjection(db, pool, Precision.FIXED);
+        pull.compute("Person", "KNOWS", 20);
+        for (long node = 0; node < pull.numberOfNodes(); node++) {
+            long id = pull.toOriginalNodeId(node);
+            assertEquals(push.getResult(id), pull.getResult(id), 0.001D);
+        }
+    }
+
+    @Test
+    public void shouldMatchSequentialRanksInFloatingPoint() throws IOException {
+        PageRank sequential = new PageRankArrayStorageSPI(db);
+        sequential.compute("Person", "KNOWS", 20);
+        for (Precision precision : Arrays.asList(Precision.FLOAT, Precision.DOUBLE)) {
+            PageRankProjection parallel = new PageRankProjection(db, pool, precision);
+            parallel.compute("Person", "KNOWS", 20);
+            for (long node = 0; node < parallel.numberOfNodes(); node++) {
+                long id = parallel.toOriginalNodeId(node);
+                assertEquals(sequential.getResult(id), parallel.getResult(id), 0.00001D);
+            }
+        }
+    }
+
+    @Test
+    public void shouldStopOnceConverged() throws IOException {
+        PageRankProjection pageRank = new PageRankProjection(db, pool);
+        pageRank.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 100, 0.0001);
+        assertTrue(pageRank.getIterations() < 100);
+        assertTrue(pageRank.getResidual() < 0.0001);
+        // 20 iterations are not converged yet, compare with a long fixed run instead of EXPECTED
+        PageRankProjection fixed = new PageRankProjection(db, pool);
+        fixed.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 200);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(fixed.getResult(id), pageRank.getResult(id), 0.01D);
+
+        String response = service.pageRank("Person", "KNOWS", 100, false, "natural", null, false, null, 1, "natural", null, null, "double", 0.0001, "pull", 10, db);
+        assertTrue(response.startsWith("PageRank for Person and KNOWS Completed! Iterations: " + pageRank.getIterations()));
+    }
+
+    @Test
+    public void shouldConvergeByPushingDeltas() throws IOException {
+        PageRankProjection fixed = new PageRankProjection(db, pool);
+        fixed.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 200);
+        PageRankDelta delta = new PageRankDelta(db, pool);
+        delta.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 100, 0.00001);
+        assertTrue(delta.getIterations() < 100);
+        assertTrue(delta.getResidual() <= 0.00001);
+        for (long node = 0; node < delta.numberOfNodes(); node++) {
+            long id = delta.toOriginalNodeId(node);
+            assertEquals(fixed.getResult(id), delta.getResult(id), 0.001D);
+        }
+
+        String response = service.pageRank("Person", "KNOWS", 100, false, "natural", null, false, null, 1, "natural", null, null, "double", 0.00001, "delta", 10, db);
+        assertTrue(response.startsWith("PageRank for Person and KNOWS Completed! Iterations: " + delta.getIterations()));
+    }
+
+    @Test
+    public void shouldConvergeFasterInPlace() throws IOException {
+        PageRankProjection jacobi = new PageRankProjection(db, pool);
+        jacobi.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 100, 0.00001);
+        PageRankGaussSeidel inPlace = new PageRankGaussSeidel(db, pool);
+        inPlace.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 100, 0.00001);
+        assertTrue(inPlace.getResidual() < 0.00001);
+        assertTrue(inPlace.getIterations() <= jacobi.getIterations());
+        for (long node = 0; node < inPlace.numberOfNodes(); node++) {
+            long id = inPlace.toOriginalNodeId(node);
+            assertEquals(jacobi.getResult(id), inPlace.getResult(id), 0.001D);
+        }
+
+        String response = service.pageRank("Person", "KNOWS", 100, false, "natural", null, false, null, 1, "natural", null, null, "double", 0.00001, "gauss-seidel", 10, db);
+        assertTrue(response.startsWith("PageRank for Person and KNOWS Completed! Iterations: "));
+    }
+
+    @Test
+    public void shouldPushSameRanksBlockedAndUnblocked() throws IOException {
+        PageRankProjection pull = new PageRankProjection(db, pool);
+        pull.compute("Person", "KNOWS", 20);
+        for (boolean blocked : new boolean[]{false, true}) {
+            PageRankPush push = new PageRankPush(db, pool, blocked);
+            push.compute("Person", "KNOWS", 20);
+            for (long node = 0; node < push.numberOfNodes(); node++) {
+                long id = push.toOriginalNodeId(node);
+                assertEquals(pull.getResult(id), push.getResult(id), 0.00001D);
+            }
+        }
+
+        String response = service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "blocked", 10, db);
+        assertEquals("PageRank for Person and KNOWS Completed!", response);
+    }
+
+    @Test
+    public void shouldEstimatePageRankByRandomWalks() throws IOException {
+        PageRankProjection exact = new PageRankProjection(db, pool);
+        exact.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20);
+        PageRankMonteCarlo few = new PageRankMonteCarlo(db, pool, 100);
+        few.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20);
+        PageRankMonteCarlo many = new PageRankMonteCarlo(db, pool, 2000);
+        many.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 20);
+        assertTrue(many.getError() > 0);
+        assertTrue(many.getError() < few.getError());
+        for (long node = 0; node < many.numberOfNodes(); node++) {
+            long id = many.toOriginalNodeId(node);
+            assertEquals(exact.getResult(id), many.getResult(id), 0.2D);
+        }
+
+        String response = service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "monte-carlo", 100, db);
+        assertTrue(response.startsWith("PageRank for Person and KNOWS Completed! Walks: 100 Error: "));
+    }
+
+    @Test
+    public void shouldGetPageRankCompressedProjection() throws IOException {
+        PageRankProjection pageRank = new PageRankProjection(db, pool);
+        pageRank.compute(new Projection("Person", "KNOWS", Direction.OUTGOING).withCompression(true), 20);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(EXPECTED, pageRank.getResult(id),0.1D);
+    }
+
+    @Test
+    public void shouldGetPageRankReorderedProjection() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        for (NodeOrder order : NodeOrder.values()) {
+            PageRankProjection pageRank = new PageRankProjection(db, pool);
+            pageRank.compute(new Projection("Person", "KNOWS", Direction.OUTGOING).withOrder(order), 20);
+            assertEquals(EXPECTED, pageRank.getResult(id),0.1D);
+        }
+    }
+
+    @Test
+    public void shouldGetPageRankFoldedProjection() throws IOException {
+        PageRankProjection pageRank = new PageRankProjection(db, pool);
+        pageRank.compute(new Projection("Person", "ACTED_IN", Direction.OUTGOING).withVia("Movie", false), 20);
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals(EXPECTED, pageRank.getResult(id),0.1D);
+    }
+
+    @Test
+    public void shouldGetSamePageRankForUniformWeights() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        for (boolean compressed : new boolean[]{false, true}) {
+            PageRankProjection pageRank = new PageRankProjection(db, pool);
+            pageRank.compute(new Projection("Person", "KNOWS", Direction.OUTGOING).withCompression(compressed).withWeight("missing", 2), 20);
+            assertEquals(EXPECTED, pageRank.getResult(id),0.1D);
+        }
+    }
+
+    @Test
+    public void shouldWriteBackReorderedPageRank() throws IOException {
+        service.pageRank("Person", "KNOWS", 20, false, "bfs", null, false, null, 1, "natural", null, null, "double", 0, "pull", 10, db);
+        assertEquals(EXPECTED, (double) getEntry("Tom Hanks").get("pagerank"), 0.1D);
+    }
+
     private void dump(PageRank pageRank) {
         for (int node = 0;node < pageRank.numberOfNodes();node++) {
             System.out.printf("%d -> %.5f %n", node, pageRank.getResult(node));
         }
     }
 
+    @Test
+    public void shouldRejectUnknownMode() throws IOException {
+        try {
+            service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "montecarlo", 10, db);
+            fail("mode montecarlo was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
+
+    @Test
+    public void shouldRejectUnparsableParameters() throws IOException {
+        String[][] parameters = {{"sideways", "natural", null}, {"natural", "random", null}, {"natural", "natural", "born"}};
+        for (String[] orientationOrderAndFilter : parameters) {
+            try {
+                service.pageRank("Person", "KNOWS", 20, false, orientationOrderAndFilter[1], null, false, null, 1,
+                        orientationOrderAndFilter[0], orientationOrderAndFilter[2], null, "double", 0, "pull", 10, db);
+                fail(Arrays.toString(orientationOrderAndFilter) + " were accepted");
+            } catch (WebApplicationException e) {
+                assertEquals(400, e.getResponse().getStatus());
+            }
+        }
+        try {
+            service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "half", 0, "pull", 10, db);
+            fail("precision half was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
+
     private void dumpResults(double expected) {
         Map<String, Object> row = getEntry("Tom Hanks");
 //        assertEquals( 4.642800717539658, pageranks.next() );
@@ -0,0 +1,52 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.IdMap;
+import com.maxdemarzi.processing.paged.PagedArray;
+import com.maxdemarzi.processing.paged.PagedIntArray;
+import com.maxdemarzi.processing.paged.PagedLongArray;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class PagedArrayTest {
+
+    @Test
+    public void shouldCopyAcrossPages() {
+        PagedIntArray array = new PagedIntArray(3L * PagedArray.PAGE_SIZE);
+        int[] values = new int[PagedArray.PAGE_SIZE + 10];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        long start = PagedArray.PAGE_SIZE - 5;
+        array.copyFrom(start, values, values.length);
+        assertEquals(0, array.get(start - 1));
+        assertEquals(1, array.get(start));
+        assertEquals(values.length, array.get(start + values.length - 1));
+        assertEquals(0, array.get(start + values.length));
+    }
+
+    @Test
+    public void shouldMapIdsBeyondIntRange() {
+        long[] ids = {5, 1L << 33, (1L << 33) + PagedArray.PAGE_SIZE, 3L << 31};
+        PagedLongArray.Builder builder = new PagedLongArray.Builder();
+        for (long id : ids) {
+            builder.add(id);
+        }
+        IdMap idMap = new IdMap(builder.build());
+        assertEquals(ids.length, idMap.nodeCount());
+        for (int node = 0; node < ids.length; node++) {
+            assertEquals(node, idMap.toMappedNodeId(ids[node]));
+            assertEquals(ids[node], idMap.toOriginalNodeId(node));
+        }
+        assertEquals(-1, idMap.toMappedNodeId(1L << 32));
+        assertEquals(-1, idMap.toMappedNodeId(1L << 40));
+    }
+
+    @Test
+    public void shouldMapNoIdsOfAnEmptyLabel() {
+        IdMap idMap = new IdMap(new PagedLongArray(0));
+        assertEquals(0, idMap.nodeCount());
+        assertEquals(-1, idMap.toMappedNodeId(0));
+        assertEquals(-1, idMap.toMappedNodeId(1L << 40));
+    }
+}
@@ -0,0 +1,123 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.pagerank.PersonalizedPageRank;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import javax.ws.rs.WebApplicationException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersonalizedPageRankTest {
+    private GraphDatabaseService db;
+    private static Service service;
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldGetPersonalizedPageRank() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        String response = service.personalizedPageRank("Person", "KNOWS", Collections.singletonList(id), 0.0001, 3, "natural", db);
+        assertTrue(response.startsWith("[{\"id\":" + id + ",\"score\":"));
+        assertEquals(3, response.split("\"id\"").length - 1);
+    }
+
+    @Test
+    public void shouldRankSourcesFirst() throws IOException {
+        long tom = (long) getEntry("Tom Hanks").get("id");
+        long keanu = (long) getEntry("Keanu Reeves").get("id");
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(db);
+        pageRank.compute("Person", "KNOWS", Direction.BOTH, new long[]{tom, keanu}, 0.0001);
+        long[] top = pageRank.top(2);
+        Arrays.sort(top);
+        long[] sources = {tom, keanu};
+        Arrays.sort(sources);
+        assertTrue(Arrays.equals(sources, top));
+
+        double total = 0;
+        for (long node : pageRank.top(pageRank.numberOfNodes())) {
+            total += pageRank.getResult(node);
+        }
+        assertTrue(total <= 1.0001);
+        assertTrue(total > 0.9);
+    }
+
+    @Test
+    public void shouldTouchLessWithLargerEpsilon() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(db);
+        pageRank.compute("Person", "KNOWS", Direction.BOTH, new long[]{id}, 0.000001);
+        int pushes = pageRank.getPushes();
+        int reached = pageRank.numberOfNodes();
+        pageRank.compute("Person", "KNOWS", Direction.BOTH, new long[]{id}, 0.01);
+        assertTrue(pageRank.getPushes() < pushes);
+        assertTrue(pageRank.numberOfNodes() <= reached);
+    }
+
+    @Test
+    public void shouldSkipNegativeSources() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        assertEquals("[]", service.personalizedPageRank("Person", "KNOWS", Collections.singletonList(-1L), 0.0001, 3, "natural", db));
+
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(db);
+        pageRank.compute("Person", "KNOWS", Direction.BOTH, new long[]{-1, id}, 0.01);
+        assertEquals(id, pageRank.top(1)[0]);
+        pageRank.compute("Person", "KNOWS", Direction.BOTH, new long[]{-1}, 0.01);
+        assertEquals(0, pageRank.numberOfNodes());
+    }
+
+    @Test
+    public void shouldRejectEpsilonAndTopOutOfRange() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        for (double epsilon : new double[]{0, -0.1}) {
+            try {
+                service.personalizedPageRank("Person", "KNOWS", Collections.singletonList(id), epsilon, 3, "natural", db);
+                fail("epsilon " + epsilon + " was accepted");
+            } catch (WebApplicationException e) {
+                assertEquals(400, e.getResponse().getStatus());
+            }
+        }
+        try {
+            service.personalizedPageRank("Person", "KNOWS", Collections.singletonList(id), 0.0001, -1, "natural", db);
+            fail("top -1 was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
+
+    private Map<String, Object> getEntry(String name) {
+        try (Result result = db.execute(TestObjects.PERSON_RESULT_QUERY, Collections.singletonMap("name", name))) {
+            return result.next();
+        }
+    }
+}
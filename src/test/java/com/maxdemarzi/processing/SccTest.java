@@ -0,0 +1,109 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.scc.SccProjection;
+import com.maxdemarzi.processing.unionfind.UnionFindParallel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SccTest {
+    private static final Label MEMBER = Label.label("Member");
+    private static final RelationshipType LINKS = RelationshipType.withName("LINKS");
+    private GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
+    // a -> b -> c -> a, c -> d, d -> e -> d, f -> a and g -> g
+    private long a, b, c, d, e, f, g;
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            Node[] nodes = new Node[7];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = db.createNode(MEMBER);
+            }
+            int[][] links = {{0, 1}, {1, 2}, {2, 0}, {2, 3}, {3, 4}, {4, 3}, {5, 0}, {6, 6}};
+            for (int[] link : links) {
+                nodes[link[0]].createRelationshipTo(nodes[link[1]], LINKS);
+            }
+            a = nodes[0].getId();
+            b = nodes[1].getId();
+            c = nodes[2].getId();
+            d = nodes[3].getId();
+            e = nodes[4].getId();
+            f = nodes[5].getId();
+            g = nodes[6].getId();
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldFindStronglyConnectedComponents() throws IOException {
+        String response = service.stronglyConnectedComponents("Member", "LINKS", false, "natural", null, null, db);
+        assertEquals("Strongly Connected Components for Member and LINKS Completed! Components: 4", response);
+
+        SccProjection scc = new SccProjection(db, pool);
+        scc.compute("Member", "LINKS", 0);
+        assertEquals(scc.getResult(a), scc.getResult(b), 0);
+        assertEquals(scc.getResult(a), scc.getResult(c), 0);
+        assertEquals(scc.getResult(d), scc.getResult(e), 0);
+        assertTrue(scc.getResult(a) != scc.getResult(d));
+        assertEquals(f, scc.getResult(f), 0);
+        assertEquals(g, scc.getResult(g), 0);
+        assertEquals(-1, scc.getResult(-1), 0);
+    }
+
+    @Test
+    public void shouldWriteComponentOfNodeZero() throws IOException {
+        // nobody acts in a movie and back, so The Matrix, the first node created, is a component of its own
+        service.stronglyConnectedComponents("Movie|Person", "ACTED_IN", false, "natural", null, null, db);
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(0.0, db.getNodeById(0).getProperty("scc"));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldMatchComponentsOfSymmetricRelationships() throws IOException {
+        // every co-actor knows the other, so following the direction changes nothing
+        SccProjection scc = new SccProjection(db, pool);
+        scc.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 0);
+        UnionFindParallel unionFind = new UnionFindParallel(db, pool);
+        unionFind.compute(new Projection("Person", "KNOWS", Direction.OUTGOING), 0);
+        for (long node = 0; node < scc.numberOfNodes(); node++) {
+            for (long other = 0; other < scc.numberOfNodes(); other++) {
+                long id = scc.toOriginalNodeId(node);
+                long otherId = scc.toOriginalNodeId(other);
+                assertEquals(unionFind.getResult(id) == unionFind.getResult(otherId), scc.getResult(id) == scc.getResult(otherId));
+            }
+        }
+    }
+}
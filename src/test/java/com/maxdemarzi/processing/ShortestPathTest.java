@@ -0,0 +1,96 @@
+package com.maxdemarzi.processing;
+
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.shortestpath.ShortestPathProjection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShortestPathTest {
+    private GraphDatabaseService db;
+    private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS*25);
+
+    @Before
+    public void setUp() {
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+        service = new Service();
+        populateDb(db);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        try ( Transaction tx = db.beginTx()) {
+            db.execute(TestObjects.MOVIES_QUERY);
+            db.execute(TestObjects.KNOWS_QUERY);
+            tx.success();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldGetShortestPath() throws IOException {
+        long id = (long) getEntry("Tom Hanks").get("id");
+        String response = service.shortestPath("Person", "KNOWS", id, null, 1, "undirected", null, null, db);
+        assertEquals("ShortestPath from " + id + " for Person and KNOWS Completed!", response);
+    }
+
+    @Test
+    public void shouldCountHopsWithoutWeights() throws IOException {
+        ShortestPathProjection shortestPath = new ShortestPathProjection(db, pool, (long) getEntry("Tom Hanks").get("id"));
+        shortestPath.compute("Person", "KNOWS", 0);
+        long id = (long) getEntry("Keanu Reeves").get("id");
+        assertEquals(hops("Tom Hanks", "Keanu Reeves"), shortestPath.getResult(id), 0.01D);
+    }
+
+    @Test
+    public void shouldUseWeightProperty() throws IOException {
+        try (Transaction tx = db.beginTx()) {
+            db.execute("MATCH ()-[r:KNOWS]->() SET r.cost = 0.5");
+            tx.success();
+        }
+        long source = (long) getEntry("Tom Hanks").get("id");
+        Projection knows = new Projection("Person", "KNOWS", Direction.BOTH);
+        ShortestPathProjection shortestPath = new ShortestPathProjection(db, pool, source);
+        shortestPath.compute(knows.withWeight("cost", 1), 0);
+        long id = (long) getEntry("Keanu Reeves").get("id");
+        assertEquals(0.5 * hops("Tom Hanks", "Keanu Reeves"), shortestPath.getResult(id), 0.01D);
+
+        shortestPath.compute(knows.withWeight("missing", 3).withCompression(true), 0);
+        assertEquals(3 * hops("Tom Hanks", "Keanu Reeves"), shortestPath.getResult(id), 0.01D);
+        assertEquals(0, shortestPath.getResult(source), 0.01D);
+    }
+
+    private long hops(String from, String to) {
+        try (Transaction tx = db.beginTx()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("from", from);
+            params.put("to", to);
+            Result result = db.execute("MATCH p = shortestPath((a:Person {name:{from}})-[:KNOWS*]-(b:Person {name:{to}})) RETURN length(p) AS hops", params);
+            return (long) result.next().get("hops");
+        }
+    }
+
+    private Map<String, Object> getEntry(String name) {
+        try (Result result = db.execute(TestObjects.PERSON_RESULT_QUERY, Collections.singletonMap("name", name))) {
+            return result.next();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.maxdemarzi.processing;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 
 import java.util.Collections;
 import java.util.Map;
 
 public class TestUtils {
+    public static final Label MEMBER = Label.label("Member");
+    public static final RelationshipType NEAR = RelationshipType.withName("NEAR");
+
     static public Map<String, Object> getPersonEntry(String name, GraphDatabaseService db) {
         try (Result result = db.execute(TestObjects.PERSON_RESULT_QUERY, Collections.singletonMap("name", name))) {
             return result.next();
@@ -18,4 +25,21 @@ public class TestUtils {
             return result.next();
         }
     }
+
+    // count cliques of size Member nodes, every member is NEAR all members of its clique created before it
+    static public Node[][] createCliques(GraphDatabaseService db, int count, int size) {
+        Node[][] cliques = new Node[count][size];
+        try (Transaction tx = db.beginTx()) {
+            for (Node[] clique : cliques) {
+                for (int i = 0; i < size; i++) {
+                    clique[i] = db.createNode(MEMBER);
+                    for (int j = 0; j < i; j++) {
+                        clique[i].createRelationshipTo(clique[j], NEAR);
+                    }
+                }
+            }
+            tx.success();
+        }
+        return cliques;
+    }
 }
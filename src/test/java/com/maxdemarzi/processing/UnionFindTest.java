@@ -1,26 +1,35 @@
 package com.maxdemarzi.processing;
 
+import com.maxdemarzi.processing.graph.Projection;
 import com.maxdemarzi.processing.unionfind.UnionFind;
 import com.maxdemarzi.processing.unionfind.UnionFindMapStorage;
+import com.maxdemarzi.processing.unionfind.UnionFindParallel;
+import com.maxdemarzi.processing.unionfind.UnionFindProjection;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
+import javax.ws.rs.WebApplicationException;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class UnionFindTest {
     public static final double EXPECTED = 2.0;
     private GraphDatabaseService db;
     private static Service service;
+    public static final int CPUS = Runtime.getRuntime().availableProcessors();
+    static ExecutorService pool = Utils.createPool(CPUS, CPUS * 25);
 
     @Before
     public void setUp() {
@@ -44,10 +53,33 @@ public class UnionFindTest {
 
     @Test
     public void shouldUnionFind() throws IOException {
-        String response = service.unionFind("Person", "KNOWS", 0, db);
+        String response = service.unionFind("Person", "KNOWS", 0, false, "natural", null, false, null, null, "parallel", true, db);
         assertEquals("UnionFind for Person and KNOWS Completed!", response);
     }
 
+    @Test
+    public void shouldRejectUnknownMode() throws IOException {
+        try {
+            service.unionFind("Person", "KNOWS", 0, false, "natural", null, false, null, null, "paralel", true, db);
+            fail("mode paralel was accepted");
+        } catch (WebApplicationException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+    }
+
+    @Test
+    public void shouldWriteComponentNamedAfterNodeZero() throws IOException {
+        // The Matrix is the first node created and heads the component of everyone who acted in it
+        service.unionFind("Movie|Person", "ACTED_IN", 0, false, "natural", null, false, null, null, "parallel", true, db);
+        long keanu = (long) getEntry("Keanu Reeves").get("id");
+        try (Transaction tx = db.beginTx()) {
+            assertEquals(0L, (long) getMovie("The Matrix").get("id"));
+            assertEquals(0.0, db.getNodeById(0).getProperty("unionfind"));
+            assertEquals(0.0, db.getNodeById(keanu).getProperty("unionfind"));
+            tx.success();
+        }
+    }
+
     @Test
     public void shouldGetUnionFindMapStorage() throws IOException {
         UnionFind unionFind = new UnionFindMapStorage(db);
@@ -57,6 +89,47 @@ public class UnionFindTest {
         //dump(unionFind);
     }
 
+    @Test
+    public void shouldGetUnionFindProjection() throws IOException {
+        UnionFind unionFind = new UnionFindProjection(db, pool);
+        unionFind.compute("Person", "KNOWS", 20);
+        long tom = (long) getEntry("Tom Hanks").get("id");
+        long meg = (long) getEntry("Meg Ryan").get("id");
+        assertEquals(unionFind.getResult(meg), unionFind.getResult(tom), 0.1D);
+        assertEquals(-1, unionFind.getResult((long) getMovie("The Matrix").get("id")), 0.1D);
+    }
+
+    @Test
+    public void shouldGetUnionFindCompressedProjection() throws IOException {
+        UnionFindProjection unionFind = new UnionFindProjection(db, pool);
+        unionFind.compute(new Projection("Person", "KNOWS", Direction.OUTGOING).withCompression(true), 20);
+        long tom = (long) getEntry("Tom Hanks").get("id");
+        long meg = (long) getEntry("Meg Ryan").get("id");
+        assertEquals(unionFind.getResult(meg), unionFind.getResult(tom), 0.1D);
+    }
+
+    @Test
+    public void shouldGetSameComponentsInParallel() throws IOException {
+        Projection projection = new Projection("Person|Movie", "ACTED_IN|DIRECTED", Direction.OUTGOING);
+        UnionFindProjection sequential = new UnionFindProjection(db, pool);
+        sequential.compute(projection, 0);
+        for (boolean sampling : new boolean[]{false, true}) {
+            UnionFindParallel parallel = new UnionFindParallel(db, pool, sampling);
+            parallel.compute(projection, 0);
+            for (long node = 0; node < parallel.numberOfNodes(); node++) {
+                long id = parallel.toOriginalNodeId(node);
+                for (long other = 0; other < parallel.numberOfNodes(); other++) {
+                    long otherId = parallel.toOriginalNodeId(other);
+                    assertEquals(sequential.getResult(id) == sequential.getResult(otherId),
+                            parallel.getResult(id) == parallel.getResult(otherId));
+                }
+                // every component is named after one of its nodes
+                long component = (long) parallel.getResult(id);
+                assertEquals(component, parallel.getResult(component), 0);
+            }
+        }
+    }
+
     private void dump(UnionFind unionFind) {
         try (Transaction tx = db.beginTx()){
             for (int nodeId = 0; nodeId < unionFind.numberOfNodes(); nodeId++) {
@@ -66,6 +139,10 @@ public class UnionFindTest {
         }
     }
 
+    private Map<String, Object> getMovie(String title) {
+        return TestUtils.getMovieEntry(title, db);
+    }
+
     private Map<String, Object> getEntry(String name) {
         try (Result result = db.execute(TestObjects.PERSON_RESULT_QUERY, Collections.singletonMap("name", name))) {
             return result.next();
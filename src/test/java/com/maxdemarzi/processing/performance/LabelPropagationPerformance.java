@@ -42,7 +42,7 @@ public class LabelPropagationPerformance {
     @BenchmarkMode(Mode.AverageTime)
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
     public void measureLabelPropagation() throws IOException {
-        service.labelPropagation("Person", "KNOWS", 20, db);
+        service.labelPropagation("Person", "KNOWS", 20, null, false, null, null, 0, null, 1, "min", 42, db);
     }
 
     @Benchmark
@@ -0,0 +1,109 @@
+package com.maxdemarzi.processing.performance;
+
+import com.maxdemarzi.processing.graph.GraphCatalog;
+import com.maxdemarzi.processing.graph.NodeOrder;
+import com.maxdemarzi.processing.graph.Projection;
+import com.maxdemarzi.processing.pagerank.PageRankProjection;
+import org.neo4j.graphdb.*;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+    PageRank iterations on a preferential attachment (power law) graph whose node ids are shuffled,
+    with the projection in store order and reordered. The projection is loaded in setup, so only the iterations are measured.
+ */
+@State(Scope.Benchmark)
+public class NodeOrderPerformance {
+    private static final int DEGREE = 8;
+    private static final int BATCH = 10_000;
+
+    @Param({"natural", "degree", "bfs"})
+    public String order;
+
+    // has to outgrow the cpu caches for the order to matter
+    @Param({"200000"})
+    public int nodes;
+
+    private File storeDir;
+    private GraphDatabaseService db;
+    private ExecutorService pool;
+    private Projection projection;
+
+    @Setup
+    public void prepare() throws IOException {
+        // too large for the in-memory file system of the impermanent database
+        storeDir = Files.createTempDirectory("node-order").toFile();
+        db = new TestGraphDatabaseFactory().newEmbeddedDatabase(storeDir);
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        populateDb(db);
+        projection = new Projection("Person", "KNOWS", Direction.OUTGOING).withOrder(NodeOrder.from(order));
+        GraphCatalog.load(db, pool, projection);
+    }
+
+    private void populateDb(GraphDatabaseService db) {
+        Random random = new Random(42);
+        long[] ids = new long[nodes];
+        try (Transaction tx = db.beginTx()) {
+            for (int i = 0; i < nodes; i++) {
+                ids[i] = db.createNode(Label.label("Person")).getId();
+            }
+            tx.success();
+        }
+        // shuffled, so store ids say nothing about the structure
+        for (int i = nodes - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        // every node links to earlier ones picked proportional to their degree
+        int[] endpoints = new int[2 * nodes * DEGREE];
+        int size = 0;
+        RelationshipType knows = RelationshipType.withName("KNOWS");
+        Transaction tx = db.beginTx();
+        try {
+            for (int node = 1; node < nodes; node++) {
+                for (int i = 0; i < Math.min(node, DEGREE); i++) {
+                    int target = size == 0 ? 0 : endpoints[random.nextInt(size)];
+                    db.getNodeById(ids[node]).createRelationshipTo(db.getNodeById(ids[target]), knows);
+                    endpoints[size++] = node;
+                    endpoints[size++] = target;
+                }
+                if (node % BATCH == 0) {
+                    tx.success();
+                    tx.close();
+                    tx = db.beginTx();
+                }
+            }
+            tx.success();
+        } finally {
+            tx.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        db.shutdown();
+        FileUtils.deleteRecursively(storeDir);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void measurePageRank() {
+        new PageRankProjection(db, pool).compute(projection, 20);
+    }
+}
@@ -42,7 +42,7 @@ public class PageRankPerformance {
     @BenchmarkMode(Mode.AverageTime)
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
     public void measurePageRank() throws IOException {
-        service.pageRank("Person", "KNOWS", 20, db);
+        service.pageRank("Person", "KNOWS", 20, false, "natural", null, false, null, 1, "natural", null, null, "double", 0, "pull", 10, db);
     }
 
 }
@@ -0,0 +1,124 @@
+package com.maxdemarzi.processing.performance;
+
+import com.maxdemarzi.processing.graph.Adjacency;
+import com.maxdemarzi.processing.graph.AdjacencyCursor;
+import com.maxdemarzi.processing.graph.Scatter;
+import com.maxdemarzi.processing.paged.PagedDoubleArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+    A single scatter of PageRank contributions over a random graph, adding atomically into the targets
+    or propagation blocked. The graph is built in memory, the bins of the blocked scatter in setup,
+    so only the scatter is measured. The smallest graph fits into the caches, the larger ones do not.
+ */
+@State(Scope.Benchmark)
+public class ScatterPerformance {
+    private static final int DEGREE = 8;
+
+    @Param({"false", "true"})
+    public boolean blocked;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int nodes;
+
+    private ExecutorService pool;
+    private Scatter scatter;
+    private PagedDoubleArray sums;
+    private double[] ranks;
+
+    @Setup
+    public void prepare() {
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Random random = new Random(42);
+        int[] targets = new int[nodes * DEGREE];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(nodes);
+        }
+        ranks = new double[nodes];
+        for (int node = 0; node < nodes; node++) {
+            ranks[node] = random.nextDouble();
+        }
+        sums = new PagedDoubleArray(nodes);
+        scatter = Scatter.create(pool, new RandomAdjacency(targets), nodes, blocked);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PagedDoubleArray measureScatter() {
+        scatter.scatter(node -> ranks[node] / DEGREE, sums);
+        return sums;
+    }
+
+    // every node has DEGREE targets at node * DEGREE
+    private static class RandomAdjacency implements Adjacency {
+        private final int[] targets;
+
+        RandomAdjacency(int[] targets) {
+            this.targets = targets;
+        }
+
+        @Override
+        public int degree(int node) {
+            return DEGREE;
+        }
+
+        @Override
+        public long relationshipCount() {
+            return targets.length;
+        }
+
+        @Override
+        public long memoryUsage() {
+            return 4L * targets.length;
+        }
+
+        @Override
+        public boolean hasWeights() {
+            return false;
+        }
+
+        @Override
+        public AdjacencyCursor newCursor() {
+            return new AdjacencyCursor() {
+                private int position;
+                private int end;
+
+                @Override
+                public AdjacencyCursor init(int node) {
+                    position = node * DEGREE;
+                    end = position + DEGREE;
+                    return this;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return position < end;
+                }
+
+                @Override
+                public int nextTarget() {
+                    return targets[position++];
+                }
+
+                @Override
+                public float weight() {
+                    return 1;
+                }
+            };
+        }
+    }
+}